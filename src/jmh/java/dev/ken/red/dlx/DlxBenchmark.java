@@ -0,0 +1,43 @@
+package dev.ken.red.dlx;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Building the dancing links matrix, the linked engine builds every object again,
+ * the array engine copies its cached template.
+ * 
+ * @author kenguyen
+ *
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DlxBenchmark {
+	
+	@Param({"3", "4"})
+	private int blockSize;
+	
+	@Benchmark
+	public DLX buildLinked() {
+		return new DLX(blockSize, blockSize);
+	}
+	
+	@Benchmark
+	public ArrayDLX buildArray() {
+		return ArrayDLX.create(blockSize, blockSize);
+	}
+}
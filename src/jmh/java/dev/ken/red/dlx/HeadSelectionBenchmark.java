@@ -0,0 +1,80 @@
+package dev.ken.red.dlx;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Choosing the column with the fewest candidates, from the count buckets of the array engine or by scanning the head list.
+ * Every invocation fills an empty grid greedily (first candidate of the chosen column) and backtracks to the top,
+ * both choices pick the same head, so both walk the same path and only the selection differs.
+ * 
+ * @author kenguyen
+ *
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HeadSelectionBenchmark {
+	
+	@Param({"3", "4"})
+	private int blockSize;
+	
+	private ArrayDLX dlx;
+	
+	@Setup
+	public void createMatrix() {
+		dlx = ArrayDLX.create(blockSize, blockSize);
+	}
+	
+	@Benchmark
+	public int bucket() {
+		int head = dlx.findSmallestHead();
+		while (head != ArrayDLX.ROOT && dlx.S[head] > 0) {
+			dlx.cover(dlx.D[head]);
+			head = dlx.findSmallestHead();
+		}
+		return unwind();
+	}
+	
+	@Benchmark
+	public int scan() {
+		int head = scanSmallestHead();
+		while (head != ArrayDLX.ROOT && dlx.S[head] > 0) {
+			dlx.cover(dlx.D[head]);
+			head = scanSmallestHead();
+		}
+		return unwind();
+	}
+	
+	private int scanSmallestHead() {
+		int smallest = dlx.R[ArrayDLX.ROOT];
+		for (int next = smallest; next != ArrayDLX.ROOT; next = dlx.R[next]) {
+			if (dlx.S[next] < dlx.S[smallest]) {
+				smallest = next;
+			}
+		}
+		return smallest;
+	}
+	
+	private int unwind() {
+		int depth = dlx.getDepth();
+		while (dlx.getDepth() > 0) {
+			dlx.uncover();
+		}
+		return depth;
+	}
+}
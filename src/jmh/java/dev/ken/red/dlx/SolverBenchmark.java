@@ -0,0 +1,69 @@
+package dev.ken.red.dlx;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dev.ken.red.model.Board;
+import dev.ken.red.util.LevelUtils;
+
+/**
+ * Solving and randomly filling all bundled levels of {@link LevelUtils#listAllLevels()},
+ * the score is the time of one pass over the whole level list.
+ * The solver finds all solutions, so it also proves that the level is unique.
+ * 
+ * @author kenguyen
+ *
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class SolverBenchmark {
+	
+	private final List<Board> boards = new ArrayList<>();
+	
+	@Setup
+	public void loadLevels() throws IOException {
+		for (String level : LevelUtils.listAllLevels()) {
+			Board board = new Board();
+			board.loadFrom(getClass().getResourceAsStream("/" + level));
+			boards.add(board);
+		}
+		if (boards.isEmpty()) {
+			throw new RuntimeException("There is no level to solve.");
+		}
+	}
+	
+	@Benchmark
+	public int solve() {
+		int count = 0;
+		for (Board board : boards) {
+			count += Solver.solve(3, 3, board).size();
+		}
+		return count;
+	}
+	
+	@Benchmark
+	public int generate() {
+		int count = 0;
+		for (Board board : boards) {
+			count += Randomizer.generate(3, 3, board).size();
+		}
+		return count;
+	}
+}
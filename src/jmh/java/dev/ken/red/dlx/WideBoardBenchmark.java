@@ -0,0 +1,79 @@
+package dev.ken.red.dlx;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dev.ken.red.model.Block;
+import dev.ken.red.model.Board;
+import dev.ken.red.model.Group;
+
+/**
+ * Solving and randomly filling 16x16 boards, the board size is fixed when the model is loaded,
+ * so the benchmark is forked with -Ddev.ken.red.blockSize=4.
+ * The solved board has a random solution, horizontal pairs as cages and its first half given, like WideBoardTest.
+ * 
+ * @author kenguyen
+ *
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Ddev.ken.red.blockSize=4")
+@State(Scope.Benchmark)
+public class WideBoardBenchmark {
+	
+	private Board board;
+	private Board empty;
+	
+	@Setup
+	public void createBoard() {
+		if (Board.SIZE != 16) {
+			throw new RuntimeException("Board size [" + Board.SIZE + "] is not 16.");
+		}
+		
+		int[][] solution = Converter.toGrid(Randomizer.generate(Block.COUNT, Block.SIZE, new Board()), Board.SIZE);
+		board = new Board();
+		int id = 0;
+		for (int row = 0; row < Board.SIZE; row++) {
+			for (int col = 0; col < Board.SIZE; col += 2) {
+				Group group = new Group(id++);
+				group.addCell(board.getCell(row, col));
+				group.addCell(board.getCell(row, col + 1));
+				group.setSum(solution[row][col] + solution[row][col + 1]);
+				board.addGroup(group);
+			}
+		}
+		for (Group group : board.getGroups()) {
+			group.calculateCombinations();
+		}
+		for (int row = 0; row < Board.SIZE / 2; row++) {
+			for (int col = 0; col < Board.SIZE; col++) {
+				board.updateCellValue(row, col, solution[row][col], false);
+			}
+		}
+		
+		empty = new Board();
+	}
+	
+	@Benchmark
+	public int solve() {
+		return Solver.countSolutions(board, 1);
+	}
+	
+	@Benchmark
+	public Collection<Node> generate() {
+		return Randomizer.generate(Block.COUNT, Block.SIZE, empty);
+	}
+}
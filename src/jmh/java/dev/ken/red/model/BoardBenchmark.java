@@ -0,0 +1,153 @@
+package dev.ken.red.model;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dev.ken.red.dlx.Converter;
+import dev.ken.red.dlx.Solver;
+import dev.ken.red.model.undo.Step;
+
+/**
+ * Model operations the game runs on every move, plus reading and writing level files
+ * 
+ * @author kenguyen
+ *
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BoardBenchmark {
+	private static final String LEVEL = "/levels/dailykillersudoku.com/09/2009-01-27.ksd";
+	private static final int AUTO_BATCH = 256;
+	
+	private byte[] data;
+	private Path file;
+	private Board board;
+	private final ByteArrayOutputStream output = new ByteArrayOutputStream(2048);
+	
+	private int[][] solution;
+	
+	// the first empty cell and its value in the solution
+	private int row;
+	private int col;
+	private int value;
+	
+	@Setup
+	public void loadLevel() throws IOException {
+		try (InputStream is = getClass().getResourceAsStream(LEVEL)) {
+			file = Files.createTempFile("level", ".ksd");
+			Files.copy(is, file, StandardCopyOption.REPLACE_EXISTING);
+			file.toFile().deleteOnExit();
+		}
+		data = Files.readAllBytes(file);
+		board = load();
+		
+		solution = Converter.toGrid(Solver.solve(Block.COUNT, Block.SIZE, load()).get(0), Board.SIZE);
+		for (int index = 0; index < Board.SIZE * Board.SIZE; index++) {
+			if (board.getCell(index / Board.SIZE, index % Board.SIZE).isEmpty()) {
+				row = index / Board.SIZE;
+				col = index % Board.SIZE;
+				value = solution[row][col];
+				break;
+			}
+		}
+	}
+	
+	private Board load() throws IOException {
+		Board board = new Board();
+		board.loadFrom(data, 0, data.length);
+		return board;
+	}
+	
+	@Benchmark
+	public Board loadFromBytes() throws IOException {
+		return load();
+	}
+	
+	@Benchmark
+	public Board loadFromFile() throws IOException {
+		Board board = new Board();
+		board.loadFrom(file.toFile());
+		return board;
+	}
+	
+	@Benchmark
+	public int saveTo() throws IOException {
+		output.reset();
+		board.saveTo(output);
+		return output.size();
+	}
+	
+	/**
+	 * The cell is emptied again, so every operation starts from the same board
+	 */
+	@Benchmark
+	public Step updateCellValue() {
+		board.updateCellValue(row, col, value, false);
+		return board.removeCellValue(row, col);
+	}
+	
+	@Benchmark
+	public Board calculateAllHints() {
+		board.calculateAllHints();
+		return board;
+	}
+	
+	/**
+	 * Auto solving changes the board, so a batch of boards with hints is prepared before every iteration
+	 * and each call takes the next one. The first rows are filled from the solution, so auto has single hint cells to start from
+	 */
+	@State(Scope.Thread)
+	public static class AutoState {
+		private static final int FILLED_ROWS = 4;
+		
+		private final Board[] boards = new Board[AUTO_BATCH];
+		private int next;
+		
+		@Setup(Level.Iteration)
+		public void prepare(BoardBenchmark benchmark) throws IOException {
+			for (int i = 0; i < AUTO_BATCH; i++) {
+				Board board = benchmark.load();
+				for (int row = 0; row < FILLED_ROWS; row++) {
+					for (int col = 0; col < Board.SIZE; col++) {
+						board.updateCellValue(row, col, benchmark.solution[row][col], false);
+					}
+				}
+				board.calculateAllHints();
+				boards[i] = board;
+			}
+			next = 0;
+		}
+	}
+	
+	/**
+	 * Score is the time of a whole batch of {@link #AUTO_BATCH} boards
+	 */
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@Warmup(iterations = 10, batchSize = AUTO_BATCH)
+	@Measurement(iterations = 20, batchSize = AUTO_BATCH)
+	public Step auto(AutoState state) {
+		return state.boards[state.next++].auto();
+	}
+}
@@ -0,0 +1,105 @@
+package dev.ken.red.util;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Combinations of every (size, sum) pair of a 9x9 board, one operation covers all pairs.
+ * Candidate masks of half-board cages on 16x16 and 25x25 boards, one operation covers a batch of partly filled cages
+ * 
+ * @author kenguyen
+ *
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CombinatorBenchmark {
+	private static final int DIGITS = 9;
+	
+	@Benchmark
+	public void calculate(Blackhole blackhole) {
+		for (int size = 1; size <= DIGITS; size++) {
+			int minSum = size * (size + 1) / 2;
+			int maxSum = size * (2 * DIGITS - size + 1) / 2;
+			for (int sum = minSum; sum <= maxSum; sum++) {
+				blackhole.consume(Combinator.calculate(size, sum));
+			}
+		}
+	}
+	
+	@Benchmark
+	public void combinationMasks(Blackhole blackhole) {
+		for (int size = 1; size <= DIGITS; size++) {
+			int minSum = size * (size + 1) / 2;
+			int maxSum = size * (2 * DIGITS - size + 1) / 2;
+			for (int sum = minSum; sum <= maxSum; sum++) {
+				blackhole.consume(Combinator.combinationMasks(size, sum));
+			}
+		}
+	}
+	
+	/**
+	 * Random cages of half the digits, some of their values already placed
+	 */
+	@State(Scope.Benchmark)
+	public static class WideState {
+		private static final int CAGE_COUNT = 64;
+		
+		@Param({"16", "25"})
+		private int digits;
+		
+		private final int[] sizes = new int[CAGE_COUNT];
+		private final int[] sums = new int[CAGE_COUNT];
+		private final int[] usedMasks = new int[CAGE_COUNT];
+		
+		@Setup
+		public void createCages() {
+			Random random = new Random(7);
+			for (int i = 0; i < CAGE_COUNT; i++) {
+				int size = 0;
+				int sum = 0;
+				int used = 0;
+				int cage = 0;
+				while (Integer.bitCount(cage) < digits / 2) {
+					cage |= 1 << random.nextInt(digits);
+				}
+				for (int bits = cage; bits != 0; bits &= bits - 1) {
+					int digit = Integer.numberOfTrailingZeros(bits);
+					if (random.nextInt(4) == 0) {
+						used |= 1 << digit;
+					}
+					else {
+						sum += digit + 1;
+						size++;
+					}
+				}
+				sizes[i] = size;
+				sums[i] = sum;
+				usedMasks[i] = used;
+			}
+		}
+	}
+	
+	@Benchmark
+	public void wideCandidateMask(WideState state, Blackhole blackhole) {
+		for (int i = 0; i < WideState.CAGE_COUNT; i++) {
+			blackhole.consume(Combinator.candidateMask(state.digits, state.sizes[i], state.sums[i], state.usedMasks[i]));
+		}
+	}
+}
@@ -6,7 +6,6 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.HashSet;
 import java.util.Set;
-import java.util.Stack;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,8 +26,9 @@ import dev.ken.red.model.Block;
 import dev.ken.red.model.Board;
 import dev.ken.red.model.Cell;
 import dev.ken.red.model.Group;
-import dev.ken.red.model.undo.CellSnapshot;
 import dev.ken.red.model.undo.Step;
+import dev.ken.red.model.undo.UndoLog;
+import dev.ken.red.util.AutoSaver;
 import dev.ken.red.util.LevelUtils;
 import dev.ken.red.view.AlertFactory;
 import dev.ken.red.view.BackgroundFactory;
@@ -61,7 +61,18 @@ public class GameController implements EventHandler<KeyEvent> {
 	private CombinatorWidget combinator;
 	
 	// UNDO feature
-	private Stack<Step> steps = new Stack<Step>();
+	private final UndoLog undoLog = new UndoLog();
+	
+	// every step is saved in background
+	private final AutoSaver autoSaver = LevelUtils.createAutoSaver();
+	
+	// values above 9 are typed as two digits on the same cell, the second one within the delay
+	private static final long SECOND_DIGIT_DELAY = 1000;
+	private int rememberCount = 0;
+	private Cell firstDigitCell;
+	private int firstDigit = 0;
+	private long firstDigitTime;
+	private int firstDigitRememberCount;
 	
 	
 	
@@ -188,38 +199,43 @@ public class GameController implements EventHandler<KeyEvent> {
 			auto();
 			break;
 			
-		// undo
+		// undo & redo
 		case Z:
 			if (event.isControlDown()) {
-				undo();
+				if (event.isShiftDown()) {
+					redo();
+				}
+				else {
+					undo();
+				}
+			}
+			break;
+		
+		case Y:
+			if (event.isControlDown()) {
+				redo();
 			}
 			break;
 	
 		// delete cell feature
 		case DIGIT0:
 		case NUMPAD0:
+			// 0 can be the second digit of 10, 20, ... otherwise it clears the cell
+			if (enterDigit(row, col, 0) == false) {
+				clearCell(row, col);
+			}
+			break;
+			
 		case DELETE:
 		case BACK_SPACE:
-			if (hintMode.isSelected()) {
-				removeCellHints(row, col);
-			}
-			else {
-				removeCellValue(row, col);
-			}
+			clearCell(row, col);
 			break;
 			
 		// enter cell value feature
 		default:
 			if (code.isDigitKey()) {
 				String text = event.getText();
-				int value = Integer.parseInt(text);
-				
-				if (hintMode.isSelected()) {
-					toggleCellHint(row, col, value);
-				}
-				else {
-					updateCellValue(row, col, value);
-				}
+				enterDigit(row, col, Integer.parseInt(text));
 			}
 			break;
 		}
@@ -269,15 +285,15 @@ public class GameController implements EventHandler<KeyEvent> {
 		boardView.updateCellView(cell);
 		
 		// update other cells which is affected by this cell
-		for (CellSnapshot snapshot : step.snapshots) {
-			Cell affectedCell = board.getCell(snapshot.row, snapshot.col);
+		for (int i = 0; i < step.size(); i++) {
+			Cell affectedCell = board.getCell(step.getRow(i), step.getCol(i));
 			if (affectedCell.isLocked()) {
 				continue;
 			}
 			boardView.getCellView(affectedCell).becomeValid();
 		}
 		
-		steps.push(step);
+		remember(step);
 		
 		// current sum of group is changed
 		updateGroupSumView(cell.getGroupId());
@@ -294,12 +310,12 @@ public class GameController implements EventHandler<KeyEvent> {
 		Step step = board.updateCellValue(row, col, value, autoMode.isSelected());
 		boardView.updateCellView(cell);
 		
-		for (CellSnapshot snapshot : step.snapshots) {
-			Cell affectedCell = board.getCell(snapshot.row, snapshot.col);
+		for (int i = 0; i < step.size(); i++) {
+			Cell affectedCell = board.getCell(step.getRow(i), step.getCol(i));
 			boardView.updateCellView(affectedCell);
 		}
 		
-		steps.push(step);
+		remember(step);
 		
 		// current sum of group is changed
 		updateGroupSumView(cell.getGroupId());
@@ -308,6 +324,49 @@ public class GameController implements EventHandler<KeyEvent> {
 		checkGameIsSolved();
 	}
 	
+	/**
+	 * Enter a typed digit as value or hint. On boards larger than 9x9, a digit right after another one on the same cell
+	 * replaces the one-digit entry with the two-digit value, e.g. 1 then 2 enters 12.
+	 * @return
+	 * false if nothing is entered (0 doesn't complete a value)
+	 */
+	private boolean enterDigit(int row, int col, int digit) {
+		Cell cell = board.getCell(row, col);
+		long now = System.currentTimeMillis();
+		int value = firstDigit * 10 + digit;
+		boolean isSecondDigit = firstDigit != 0 && firstDigitCell == cell && now - firstDigitTime <= SECOND_DIGIT_DELAY
+				&& value <= Board.SIZE;
+		firstDigit = 0;
+		
+		if (isSecondDigit) {
+			
+			// the one-digit entry is the last step, take it back first
+			if (rememberCount == firstDigitRememberCount + 1) {
+				undo();
+			}
+		}
+		else if (digit == 0) {
+			return false;
+		}
+		else {
+			value = digit;
+			if (digit * 10 <= Board.SIZE) {
+				firstDigit = digit;
+				firstDigitCell = cell;
+				firstDigitTime = now;
+				firstDigitRememberCount = rememberCount;
+			}
+		}
+		
+		if (hintMode.isSelected()) {
+			toggleCellHint(row, col, value);
+		}
+		else {
+			updateCellValue(row, col, value);
+		}
+		return true;
+	}
+	
 	private void toggleCellHint(int row, int col, int hint) {
 		Cell cell = board.getCell(row, col);
 		
@@ -316,23 +375,32 @@ public class GameController implements EventHandler<KeyEvent> {
 			return;
 		}
 		
-		boolean isAdding = !board.getCell(row, col).getHints().contains(hint);
+		boolean isAdding = !cell.hasHint(hint);
 		Step step = isAdding ? board.addCellHint(row, col, hint) : board.subCellHint(row, col, hint);
-		steps.push(step);
+		remember(step);
 		
 		boardView.getCellView(row, col).toggleHint(hint, isAdding);
 	}
 	
+	private void clearCell(int row, int col) {
+		if (hintMode.isSelected()) {
+			removeCellHints(row, col);
+		}
+		else {
+			removeCellValue(row, col);
+		}
+	}
+	
 	private void removeCellHints(int row, int col) {
 		Cell cell = board.getCell(row, col);
 		
 		// if cell doesn't any hint, don't have to clear it
-		if (cell.getHints().isEmpty()) {
+		if (cell.getHintMask() == 0) {
 			return;
 		}
 		
 		Step step = board.removeCellHints(row, col);
-		steps.push(step);
+		remember(step);
 		
 		boardView.updateCellView(cell);
 	}
@@ -352,12 +420,12 @@ public class GameController implements EventHandler<KeyEvent> {
 			return;
 		}
 		
-		steps.push(step);
+		remember(step);
 		
 		Set<Integer> groupIds = new HashSet<Integer>();
-		for (CellSnapshot snapshot : step.snapshots) {
-			Cell affectedCell = board.getCell(snapshot.row, snapshot.col);
-			if (snapshot.isMain()) {
+		for (int i = 0; i < step.size(); i++) {
+			Cell affectedCell = board.getCell(step.getRow(i), step.getCol(i));
+			if (step.isMain(i)) {
 				groupIds.add(affectedCell.getGroupId());
 			}
 			boardView.updateCellView(affectedCell);
@@ -371,25 +439,48 @@ public class GameController implements EventHandler<KeyEvent> {
 		checkGameIsSolved();
 	}
 	
+	private void remember(Step step) {
+		rememberCount++;
+		undoLog.push(step);
+		autoSaver.record(board, step);
+	}
+	
 	private void undo() {
-		if (steps.isEmpty()) {
+		if (undoLog.undo(board) == false) {
 			logger.warn("There is nothing to undo.");
 			return;
 		}
-		
-		Step step = steps.pop();
-		Set<Integer> groupIds = board.undo(step);
+		updateStepView();
+	}
+	
+	private void redo() {
+		if (undoLog.redo(board) == false) {
+			logger.warn("There is nothing to redo.");
+			return;
+		}
+		updateStepView();
+	}
+	
+	/**
+	 * Update views of cells which are changed by the last undo or redo
+	 */
+	private void updateStepView() {
+		Set<Integer> groupIds = new HashSet<Integer>();
+		for (int position = undoLog.getStepStart(); position < undoLog.getStepEnd(); position++) {
+			int index = undoLog.getCellIndex(position);
+			Cell cell = board.getCell(index / Board.SIZE, index % Board.SIZE);
+			if (undoLog.isMain(position)) {
+				groupIds.add(cell.getGroupId());
+			}
+			boardView.updateCellView(cell);
+		}
 		
 		// update all affected group sum view
 		for (int groupId : groupIds) {
 			updateGroupSumView(groupId);
 		}
 		
-		// update all cell view
-		for (CellSnapshot snapshot : step.snapshots) {
-			Cell cell = board.getCell(snapshot.row, snapshot.col);
-			boardView.updateCellView(cell);
-		}
+		autoSaver.record(board, undoLog);
 	}
 	
 	
@@ -433,8 +524,8 @@ public class GameController implements EventHandler<KeyEvent> {
 			return;
 		}
 		
-		// clear UNDO stack
-		steps.clear();
+		// clear UNDO log
+		undoLog.clear();
 		
 		// stop the timer
 		pauseTimer();
@@ -462,6 +553,8 @@ public class GameController implements EventHandler<KeyEvent> {
 		board = new Board();
 		board.loadFrom(stream);
 		board.calculateAllHints();
+		undoLog.clear();
+		autoSaver.compact(board);
 		
 		// 3. redraw view
 		updateEntireView();
@@ -480,11 +573,13 @@ public class GameController implements EventHandler<KeyEvent> {
 	}
 	
 	public void save() throws IOException {
-		LevelUtils.saveCurrentGame(board);
+		autoSaver.flush(board);
 	}
 	
 	public void loadSavedGame() throws IOException {
 		board = LevelUtils.resumeSavedGame();
+		undoLog.clear();
+		autoSaver.compact(board);
 		updateEntireView();
 	}
 	
@@ -16,6 +16,8 @@ import javafx.scene.input.MouseEvent;
 import javafx.scene.paint.Color;
 import dev.ken.red.dlx.Converter;
 import dev.ken.red.dlx.Randomizer;
+import dev.ken.red.dlx.SolveOptions;
+import dev.ken.red.dlx.SolveResult;
 import dev.ken.red.model.Block;
 import dev.ken.red.model.Board;
 import dev.ken.red.model.Cell;
@@ -33,6 +35,7 @@ public class LevelGenerator3 implements ILevelGenerator {
 	
 	private static final Logger logger = LoggerFactory.getLogger(LevelGenerator3.class);
 	private static final int[][] DIRECTIONS = {{-1,0},{0,1},{1,0},{0,-1}};		// U, R, D, L
+	private static final long RANDOM_TIMEOUT = 2000;	// milliseconds
 	
 	private BoardView boardView;
 	
@@ -141,8 +144,15 @@ public class LevelGenerator3 implements ILevelGenerator {
 		// hidden RANDOM feature is triggered when middle mouse clicked
 		boardView.setOnMouseClicked(event -> {
 			if (event.getButton() == MouseButton.MIDDLE) {
+				// this runs on the FX thread, so give up when the group layout takes too long to fill
+				SolveResult result = Randomizer.generate(Block.COUNT, Block.SIZE, board, SolveOptions.create().timeout(RANDOM_TIMEOUT));
+				if (result.getSolutionCount() == 0) {
+					logger.warn("Cannot fill the board randomly: " + result.getStatus());
+					return;
+				}
+				
 				// don't need to reset data, just update the view
-				Board buffer = Converter.toBoard(Randomizer.generate(Block.COUNT, Block.COUNT, board));
+				Board buffer = Converter.toBoard(result.getSolutions().get(0));
 				buffer.forEach(cell -> boardView.updateCellView(cell));
 			}
 		});
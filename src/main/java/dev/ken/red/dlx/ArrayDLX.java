@@ -0,0 +1,785 @@
+package dev.ken.red.dlx;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import dev.ken.red.model.Board;
+import dev.ken.red.model.Cell;
+import dev.ken.red.model.CompactBoard;
+import dev.ken.red.util.Combinator;
+
+/**
+ * Non-public DLX engine which keeps the whole dancing links matrix in flat int arrays.
+ * Every node (root, heads and candidates) is just an index, so cover/uncover is index arithmetic
+ * instead of pointer chasing through thousands of small objects.
+ * 
+ * Layout of the index space:
+ * <pre>
+ * 0                                  root (main head)
+ * 1 .. headCount                     heads of the 4 standard constraints
+ * .. + lineCount * CON_COUNT         4 nodes of every line (row, col, val), linked horizontally
+ * .. up to capacity                  group heads and group nodes, appended by board constraints
+ * </pre>
+ * 
+ * The first 3 parts are identical for every board of the same size, so they are built only once per
+ * (blockCount, blockSize) into a template. Every engine is a bulk array copy of that template.
+ * 
+ * @author kenguyen
+ *
+ */
+class ArrayDLX {
+	public static final int CON_COUNT = DLX.CON_COUNT;
+	public static final int ROOT = 0;
+	
+	// group heads are never chosen, their count is big enough to never run out (same as GroupHead)
+	private static final int GROUP_HEAD_COUNT = Integer.MAX_VALUE / 2;
+	
+	// immutable templates, never cover or uncover them
+	private static final Map<Integer, ArrayDLX> TEMPLATES = new ConcurrentHashMap<>();
+	
+	// pointers - every array is indexed by node index
+	protected final int[] U;
+	protected final int[] D;
+	protected final int[] L;
+	protected final int[] R;
+	protected final int[] C;		// head of the column this node belongs to
+	protected final int[] X;		// line this node belongs to
+	
+	// values - keep track count of candidate in the column (only meaningful for heads)
+	protected final int[] S;
+	
+	// heads of the main list are also kept in buckets by their count, so the smallest head is found without
+	// scanning the list. Every bucket is a bit set of heads (bit = head index), indexed by count * BUCKET_WORDS + head / 64
+	private final long[] buckets;
+	private final int[] bucketSizes;
+	private int lowestBucket;	// every bucket below this one is empty
+	
+	// group constraints, indexed by line then by group
+	private final int[] lineGroup;
+	private final int[] groupSize;
+	private final int[] groupSum;
+	private final int[] groupCurrentSize;
+	private final int[] groupCurrentSum;
+	private final int[] groupUsed;		// mask of values already in the group
+	private final int[] groupHeads;		// head of value column, indexed by group * BOARD_SIZE + val
+	private int groupCount = 0;
+	
+	// tracking steps
+	private final int[] steps;
+	private int depth = 0;
+	
+	// rows removed by group propagation, marks remember where each step starts in the trail
+	private final int[] trail;
+	private final int[] marks;
+	private int trailSize = 0;
+	private boolean isPropagating = true;
+	
+	// statistics - how many candidates were covered
+	protected long nodeCount = 0;
+	protected long uncoverCount = 0;
+	protected long rejectionCount = 0;	// candidates refused by the group sum check, nothing was covered
+	protected long backtrackCount = 0;	// frames given up by the search, counted by Search
+	protected int maxDepth = 0;
+	
+	// remember board size for quick accessing head later
+	protected final int BOARD_SIZE;
+	protected final int CON_SIZE;
+	private final int FIRST_NODE;
+	private final int SKELETON_SIZE;	// group constraints start from here
+	private final int BUCKET_WORDS;
+	private int size;	// the next free index
+	
+	private final ArrayDLX template;
+	
+	protected ArrayDLX(int blockCount, int blockSize) {
+		BOARD_SIZE = blockCount * blockSize;
+		if (BOARD_SIZE > 31) {
+			// used values of a group and allowed values of a line are int masks
+			throw new RuntimeException("Board size is too large.");
+		}
+		
+		CON_SIZE = BOARD_SIZE * BOARD_SIZE;
+		final int headCount = CON_SIZE * CON_COUNT;
+		final int lineCount = CON_SIZE * BOARD_SIZE;
+		FIRST_NODE = 1 + headCount;
+		SKELETON_SIZE = FIRST_NODE + lineCount * CON_COUNT;
+		template = this;
+		
+		// every line has at most one group node, and there are never more group heads than that
+		final int capacity = SKELETON_SIZE + lineCount * 2;
+		U = new int[capacity];
+		D = new int[capacity];
+		L = new int[capacity];
+		R = new int[capacity];
+		C = new int[capacity];
+		X = new int[capacity];
+		S = new int[capacity];
+		BUCKET_WORDS = (FIRST_NODE + 63) >>> 6;
+		buckets = new long[(BOARD_SIZE + 1) * BUCKET_WORDS];
+		bucketSizes = new int[BOARD_SIZE + 1];
+		
+		lineGroup = new int[lineCount];
+		Arrays.fill(lineGroup, -1);
+		groupSize = new int[CON_SIZE];
+		groupSum = new int[CON_SIZE];
+		groupCurrentSize = new int[CON_SIZE];
+		groupCurrentSum = new int[CON_SIZE];
+		groupUsed = new int[CON_SIZE];
+		groupHeads = new int[lineCount];
+		steps = new int[CON_SIZE];
+		trail = new int[lineCount];
+		marks = new int[CON_SIZE];
+		
+		// build the main head list, every head starts as an empty vertical circle
+		for (int head = 0; head < FIRST_NODE; head++) {
+			U[head] = head;
+			D[head] = head;
+			C[head] = head;
+			X[head] = -1;
+			L[head] = head - 1;
+			R[head] = head + 1;
+		}
+		L[ROOT] = FIRST_NODE - 1;
+		R[FIRST_NODE - 1] = ROOT;
+		
+		// traverse through all candidates and build dancing links matrix
+		size = FIRST_NODE;
+		for (int row = 0; row < BOARD_SIZE; row++) {
+			for (int col = 0; col < BOARD_SIZE; col++) {
+				for (int val = 0; val < BOARD_SIZE; val++) {
+					int line = toLineIndex(row, col, val);
+					int first = size;
+					
+					// create 4 nodes for 4 constraints and link them together horizontally
+					for (int i = 0; i < CON_COUNT; i++) {
+						int node = size++;
+						X[node] = line;
+						L[node] = i == 0 ? first + CON_COUNT - 1 : node - 1;
+						R[node] = i == CON_COUNT - 1 ? first : node + 1;
+						
+						// calculate head index (same constraint order as the linked engine)
+						int headIndex = CON_SIZE * i;
+						switch(i) {
+						// constraint 1 - each node has exactly one value
+						case 0:
+							headIndex += row * BOARD_SIZE + col;
+							break;
+						
+						// constraint 2 - each row must have unique nodes
+						case 1:
+							headIndex += row * BOARD_SIZE + val;
+							break;
+						
+						// constraint 3 - each column must have unique nodes
+						case 2:
+							headIndex += col * BOARD_SIZE + val;
+							break;
+						
+						// constraint 4 - each block must have unique nodes
+						case 3:
+							int blockRow = row / blockSize;
+							int blockCol = col / blockSize;
+							int blockIndex = blockRow * blockCount + blockCol;
+							headIndex += blockIndex * blockSize * blockSize + val;
+							break;
+						}
+						
+						// append this new node to the bottom of the column
+						appendToColumn(headIndex + 1, node);
+					}
+				}
+			}
+		}
+		
+		// every head starts in the bucket of its full count
+		lowestBucket = BOARD_SIZE;
+		for (int head = 1; head < FIRST_NODE; head++) {
+			insertToBucket(head);
+		}
+	}
+	
+	
+	
+	private ArrayDLX(ArrayDLX template) {
+		BOARD_SIZE = template.BOARD_SIZE;
+		CON_SIZE = template.CON_SIZE;
+		FIRST_NODE = template.FIRST_NODE;
+		SKELETON_SIZE = template.SKELETON_SIZE;
+		BUCKET_WORDS = template.BUCKET_WORDS;
+		this.template = template;
+		
+		final int capacity = template.U.length;
+		U = new int[capacity];
+		D = new int[capacity];
+		L = new int[capacity];
+		R = new int[capacity];
+		C = new int[capacity];
+		X = new int[capacity];
+		S = new int[capacity];
+		buckets = new long[template.buckets.length];
+		bucketSizes = new int[template.bucketSizes.length];
+		
+		lineGroup = new int[template.lineGroup.length];
+		groupSize = new int[CON_SIZE];
+		groupSum = new int[CON_SIZE];
+		groupCurrentSize = new int[CON_SIZE];
+		groupCurrentSum = new int[CON_SIZE];
+		groupUsed = new int[CON_SIZE];
+		groupHeads = new int[template.groupHeads.length];
+		steps = new int[CON_SIZE];
+		trail = new int[template.trail.length];
+		marks = new int[CON_SIZE];
+		
+		reset();
+	}
+	
+	/**
+	 * Restore the empty matrix (no board constraints, nothing covered) by copying the template.
+	 * Nothing is allocated, so one engine can be reused for many boards of the same size.
+	 */
+	protected void reset() {
+		System.arraycopy(template.U, 0, U, 0, SKELETON_SIZE);
+		System.arraycopy(template.D, 0, D, 0, SKELETON_SIZE);
+		System.arraycopy(template.L, 0, L, 0, SKELETON_SIZE);
+		System.arraycopy(template.R, 0, R, 0, SKELETON_SIZE);
+		System.arraycopy(template.C, 0, C, 0, SKELETON_SIZE);
+		System.arraycopy(template.X, 0, X, 0, SKELETON_SIZE);
+		System.arraycopy(template.S, 0, S, 0, SKELETON_SIZE);
+		System.arraycopy(template.buckets, 0, buckets, 0, buckets.length);
+		System.arraycopy(template.bucketSizes, 0, bucketSizes, 0, bucketSizes.length);
+		lowestBucket = template.lowestBucket;
+		Arrays.fill(lineGroup, -1);
+		groupCount = 0;
+		depth = 0;
+		trailSize = 0;
+		nodeCount = 0;
+		uncoverCount = 0;
+		rejectionCount = 0;
+		backtrackCount = 0;
+		maxDepth = 0;
+		size = SKELETON_SIZE;
+	}
+	
+	/**
+	 * @return
+	 * a fresh engine copied from the cached template of the board size
+	 */
+	protected static ArrayDLX create(int blockCount, int blockSize) {
+		int key = blockCount << 8 | blockSize;
+		ArrayDLX template = TEMPLATES.computeIfAbsent(key, k -> new ArrayDLX(blockCount, blockSize));
+		return new ArrayDLX(template);
+	}
+	
+	/**
+	 * @return
+	 * an independent engine in exactly the same state (board constraints and covered steps),
+	 * so a search can continue from here on another thread
+	 */
+	protected ArrayDLX copy() {
+		ArrayDLX copy = new ArrayDLX(template);
+		System.arraycopy(U, 0, copy.U, 0, size);
+		System.arraycopy(D, 0, copy.D, 0, size);
+		System.arraycopy(L, 0, copy.L, 0, size);
+		System.arraycopy(R, 0, copy.R, 0, size);
+		System.arraycopy(C, 0, copy.C, 0, size);
+		System.arraycopy(X, 0, copy.X, 0, size);
+		System.arraycopy(S, 0, copy.S, 0, size);
+		System.arraycopy(buckets, 0, copy.buckets, 0, buckets.length);
+		System.arraycopy(bucketSizes, 0, copy.bucketSizes, 0, bucketSizes.length);
+		
+		System.arraycopy(lineGroup, 0, copy.lineGroup, 0, lineGroup.length);
+		System.arraycopy(groupSize, 0, copy.groupSize, 0, groupCount);
+		System.arraycopy(groupSum, 0, copy.groupSum, 0, groupCount);
+		System.arraycopy(groupCurrentSize, 0, copy.groupCurrentSize, 0, groupCount);
+		System.arraycopy(groupCurrentSum, 0, copy.groupCurrentSum, 0, groupCount);
+		System.arraycopy(groupUsed, 0, copy.groupUsed, 0, groupCount);
+		System.arraycopy(groupHeads, 0, copy.groupHeads, 0, groupCount * BOARD_SIZE);
+		System.arraycopy(steps, 0, copy.steps, 0, depth);
+		System.arraycopy(marks, 0, copy.marks, 0, depth);
+		System.arraycopy(trail, 0, copy.trail, 0, trailSize);
+		
+		copy.groupCount = groupCount;
+		copy.depth = depth;
+		copy.trailSize = trailSize;
+		copy.lowestBucket = lowestBucket;
+		copy.isPropagating = isPropagating;
+		copy.nodeCount = nodeCount;
+		copy.uncoverCount = uncoverCount;
+		copy.rejectionCount = rejectionCount;
+		copy.backtrackCount = backtrackCount;
+		copy.maxDepth = maxDepth;
+		copy.size = size;
+		return copy;
+	}
+	
+	
+	
+	private void appendToColumn(int head, int node) {
+		int last = U[head];
+		D[last] = node;
+		U[node] = last;
+		D[node] = head;
+		U[head] = node;
+		C[node] = head;
+		S[head]++;
+	}
+	
+	/**
+	 * @param cells
+	 * cells of the group are cells[from] .. cells[from + cellCount - 1], indexed by row * BOARD_SIZE + col
+	 */
+	private void appendGroupConstraints(int[] cells, int from, int cellCount, int sum) {
+		// group constraints don't have head in the main list, same as the linked engine
+		// each group has N columns representing N possible values
+		// each column has as many nodes as cells in the group
+		int groupIndex = groupCount++;
+		groupSize[groupIndex] = cellCount;
+		groupSum[groupIndex] = sum;
+		groupCurrentSize[groupIndex] = 0;
+		groupCurrentSum[groupIndex] = 0;
+		groupUsed[groupIndex] = 0;
+		
+		for (int val = 0; val < BOARD_SIZE; val++) {
+			
+			// a detached head, its horizontal links point to itself
+			int head = size++;
+			U[head] = head;
+			D[head] = head;
+			L[head] = head;
+			R[head] = head;
+			C[head] = head;
+			X[head] = -1;
+			S[head] = GROUP_HEAD_COUNT;
+			groupHeads[groupIndex * BOARD_SIZE + val] = head;
+			
+			for (int i = from; i < from + cellCount; i++) {
+				int line = cells[i] * BOARD_SIZE + val;
+				lineGroup[line] = groupIndex;
+				
+				// hook the node to the end of the line (left of the first node)
+				int node = size++;
+				int first = firstNodeOf(line);
+				int last = L[first];
+				X[node] = line;
+				R[last] = node;
+				L[node] = last;
+				R[node] = first;
+				L[first] = node;
+				
+				appendToColumn(head, node);
+			}
+		}
+		
+		// scan and remove impossible values, only values of this board size are considered
+		int valMask = Combinator.candidateMask(BOARD_SIZE, cellCount, sum, 0);
+		if (valMask == 0) {
+			throw new RuntimeException("Group size [" + cellCount + "] and sum [" + sum + "] are invalid.");
+		}
+		
+		// bits with value 0 are impossible values of the group
+		for (int val = 0; val < BOARD_SIZE; val++) {
+			if ((valMask & 1 << val) == 0) {
+				// remove all rows which are impossible values
+				for (int i = from; i < from + cellCount; i++) {
+					remove(firstNodeOf(cells[i] * BOARD_SIZE + val));
+				}
+			}
+		}
+	}
+	
+	
+	
+	protected void applyBoardConstraints(Board board) {
+		board.getGroups().stream().forEach(group -> {
+			Collection<Cell> cells = group.getCells();
+			
+			// if group has only one cell, the sum of group is the value of the cell
+			// so this cell can be solved right away
+			if (cells.size() == 1) {
+				Cell cell = cells.iterator().next();
+				board.updateCellValue(cell.row, cell.col, group.getSum(), false);
+				return;
+			}
+			
+			int[] indexes = new int[cells.size()];
+			int i = 0;
+			for (Cell cell : cells) {
+				indexes[i++] = cell.row * BOARD_SIZE + cell.col;
+			}
+			appendGroupConstraints(indexes, 0, indexes.length, group.getSum());
+		});
+		
+		// apply fixed cells (cells already had value)
+		board.forEach(cell -> {
+			if (cell.isEmpty() == false) {
+				cover(firstNodeOf(toLineIndex(cell.row, cell.col, cell.getValue() - 1)));
+			}
+		});
+	}
+	
+	/**
+	 * Same as {@link #applyBoardConstraints(Board)}, cells of single-cell cages get their value in the compact board
+	 */
+	protected void applyBoardConstraints(CompactBoard board) {
+		if (BOARD_SIZE != CompactBoard.SIZE) {
+			throw new RuntimeException("Board size [" + CompactBoard.SIZE + "] doesn't match the engine.");
+		}
+		
+		// collect cells of every cage at once
+		final int cageCount = board.getCageCount();
+		int[] cells = new int[CompactBoard.CELL_COUNT];
+		int[] starts = new int[cageCount + 1];
+		for (int index = 0; index < CompactBoard.CELL_COUNT; index++) {
+			int cage = board.getCageId(index);
+			if (cage != CompactBoard.NO_CAGE) {
+				starts[cage + 1]++;
+			}
+		}
+		for (int cage = 0; cage < cageCount; cage++) {
+			starts[cage + 1] += starts[cage];
+		}
+		int[] next = Arrays.copyOf(starts, cageCount);
+		for (int index = 0; index < CompactBoard.CELL_COUNT; index++) {
+			int cage = board.getCageId(index);
+			if (cage != CompactBoard.NO_CAGE) {
+				cells[next[cage]++] = index;
+			}
+		}
+		
+		for (int cage = 0; cage < cageCount; cage++) {
+			int cellCount = starts[cage + 1] - starts[cage];
+			
+			// if group has only one cell, the sum of group is the value of the cell
+			if (cellCount == 1) {
+				board.setValue(cells[starts[cage]], board.getCageSum(cage));
+			}
+			else if (cellCount > 1) {
+				appendGroupConstraints(cells, starts[cage], cellCount, board.getCageSum(cage));
+			}
+		}
+		
+		// apply fixed cells (cells already had value)
+		for (int index = 0; index < CompactBoard.CELL_COUNT; index++) {
+			int value = board.getValue(index);
+			if (value != Cell.EMPTY_VALUE) {
+				cover(firstNodeOf(index * BOARD_SIZE + value - 1));
+			}
+		}
+	}
+	
+	
+	
+	public Collection<Node> getSteps() {
+		Collection<Node> nodes = new LinkedList<>();
+		for (int i = 0; i < depth; i++) {
+			nodes.add(toNode(steps[i]));
+		}
+		return nodes;
+	}
+	
+	/**
+	 * Write covered steps as cell values (1 based) into a grid indexed by row * BOARD_SIZE + col, nothing is allocated
+	 */
+	protected void fillValues(byte[] values) {
+		for (int i = 0; i < depth; i++) {
+			int line = X[steps[i]];
+			values[line / BOARD_SIZE] = (byte) (line % BOARD_SIZE + 1);
+		}
+	}
+	
+	
+	
+	protected int getDepth() {
+		return depth;
+	}
+	
+	
+	
+	protected Boolean cover(int candidate) {
+		
+		// group constraints check before actually cover this row
+		// if group constraints are not satisfied, return null right away
+		int line = X[candidate];
+		if (increaseSum(line) == false) {
+			decreaseSum(line);		// undo
+			rejectionCount++;
+			return null;
+		}
+		
+		// tracking this step
+		marks[depth] = trailSize;
+		steps[depth++] = candidate;
+		nodeCount++;
+		if (depth > maxDepth) {
+			maxDepth = depth;
+		}
+		
+		// traverse through all columns in this candidate
+		boolean result = true;
+		int column = candidate;
+		do {
+			int head = C[column];
+			
+			// unlink head of this column from head list
+			L[R[head]] = L[head];
+			R[L[head]] = R[head];
+			if (head < FIRST_NODE) {
+				removeFromBucket(head);
+			}
+			
+			// traverse other rows (except this row and the head) which linked to this column
+			for (int otherRow = D[head]; otherRow != head; otherRow = D[otherRow]) {
+				if (otherRow == column) {
+					continue;
+				}
+				
+				// traverse all nodes of this row, except the first one
+				for (int node = R[otherRow]; node != otherRow; node = R[node]) {
+					if (unlink(node) < 1) {
+						result = false;
+					}
+				}
+			}
+			
+			column = R[column];
+		} while (column != candidate);
+		
+		// remove values which can't complete the group anymore
+		int group = lineGroup[line];
+		if (isPropagating && group >= 0 && propagate(group) == false) {
+			result = false;
+		}
+		
+		// return true if there is not any head which count is less than 1
+		return result;
+	}
+	
+	
+	
+	protected void uncover() {
+		
+		// get the latest step
+		int candidate = steps[--depth];
+		uncoverCount++;
+		
+		// bring back rows removed by group propagation, the last removed row comes back first
+		while (trailSize > marks[depth]) {
+			restore(trail[--trailSize]);
+		}
+		
+		// decrease sum of the group this candidate belongs to
+		decreaseSum(X[candidate]);
+		
+		// traverse through all columns of this row
+		// go left from the last node back to this node
+		int column = L[candidate];
+		do {
+			int head = C[column];
+			
+			// traverse through all other rows which link to the same column, go up from the bottom row
+			for (int otherRow = U[head]; otherRow != head; otherRow = U[otherRow]) {
+				if (otherRow == column) {
+					continue;
+				}
+				
+				// traverse through all other nodes of this row and re-link, go left from the last node
+				for (int node = L[otherRow]; node != otherRow; node = L[node]) {
+					relink(node);
+				}
+			}
+			
+			// re-link head to the head list
+			L[R[head]] = head;
+			R[L[head]] = head;
+			if (head < FIRST_NODE) {
+				insertToBucket(head);
+			}
+			
+			column = L[column];
+		} while (column != L[candidate]);
+	}
+	
+	
+	
+	/**
+	 * Take the head with the lowest index from the lowest non-empty bucket, which is the same head a scan of
+	 * the head list would find. A head with no candidate left comes out of bucket 0 right away.
+	 * Only buckets and words of a bucket are scanned, never the heads themselves.
+	 * @return
+	 * ROOT if the head list is empty
+	 */
+	protected int findSmallestHead() {
+		for (; lowestBucket <= BOARD_SIZE; lowestBucket++) {
+			if (bucketSizes[lowestBucket] > 0) {
+				int base = lowestBucket * BUCKET_WORDS;
+				int word = base;
+				while (buckets[word] == 0) {
+					word++;
+				}
+				return (word - base) << 6 | Long.numberOfTrailingZeros(buckets[word]);
+			}
+		}
+		return ROOT;
+	}
+	
+	private void insertToBucket(int head) {
+		int count = S[head];
+		buckets[count * BUCKET_WORDS + (head >>> 6)] |= 1L << head;
+		bucketSizes[count]++;
+		if (count < lowestBucket) {
+			lowestBucket = count;
+		}
+	}
+	
+	private void removeFromBucket(int head) {
+		int count = S[head];
+		buckets[count * BUCKET_WORDS + (head >>> 6)] &= ~(1L << head);
+		bucketSizes[count]--;
+	}
+	
+	private void moveToBucket(int head, int from, int to) {
+		int word = head >>> 6;
+		long bit = 1L << head;
+		buckets[from * BUCKET_WORDS + word] &= ~bit;
+		buckets[to * BUCKET_WORDS + word] |= bit;
+		bucketSizes[from]--;
+		bucketSizes[to]++;
+		if (to < lowestBucket) {
+			lowestBucket = to;
+		}
+	}
+	
+	
+	
+	/**
+	 * Group propagation: once a value is placed in a group, remaining cells of the group can only take values
+	 * which appear in some combination of the remaining size and sum without the values already used.
+	 * All rows of other values are removed and remembered in the trail.
+	 * @return
+	 * false if some cell runs out of candidates
+	 */
+	private boolean propagate(int group) {
+		int remainSize = groupSize[group] - groupCurrentSize[group];
+		if (remainSize == 0) {
+			return true;
+		}
+		
+		int used = groupUsed[group];
+		int allowed = Combinator.candidateMask(BOARD_SIZE, remainSize, groupSum[group] - groupCurrentSum[group], used);
+		int excluded = ~(allowed | used) & ((1 << BOARD_SIZE) - 1);
+		
+		// value columns of unused values only hold rows of cells which are still empty
+		boolean result = true;
+		for (; excluded != 0; excluded &= excluded - 1) {
+			int val = Integer.numberOfTrailingZeros(excluded);
+			int head = groupHeads[group * BOARD_SIZE + val];
+			for (int row = D[head]; row != head; row = D[row]) {
+				
+				// the row keeps its own links, so walking down the column still works after removing it
+				int node = row;
+				do {
+					if (unlink(node) < 1) {
+						result = false;
+					}
+					node = R[node];
+				} while (node != row);
+				trail[trailSize++] = row;
+			}
+		}
+		
+		return result;
+	}
+	
+	private void restore(int row) {
+		int node = L[row];
+		do {
+			relink(node);
+			node = L[node];
+		} while (node != L[row]);
+	}
+	
+	protected void setPropagating(boolean isPropagating) {
+		this.isPropagating = isPropagating;
+	}
+	
+	/**
+	 * Heads of covered columns never lose candidates (their rows are already gone from other columns),
+	 * so every main head whose count changes here is still in the head list and in a bucket
+	 */
+	private int unlink(int node) {
+		U[D[node]] = U[node];
+		D[U[node]] = D[node];
+		int head = C[node];
+		int count = --S[head];
+		if (head < FIRST_NODE) {
+			moveToBucket(head, count + 1, count);
+		}
+		return count;
+	}
+	
+	private void relink(int node) {
+		U[D[node]] = node;
+		D[U[node]] = node;
+		int head = C[node];
+		int count = ++S[head];
+		if (head < FIRST_NODE) {
+			moveToBucket(head, count - 1, count);
+		}
+	}
+	
+	private void remove(int candidate) {
+		// go through all node and unlink it with its above and below nodes
+		int node = candidate;
+		do {
+			unlink(node);
+			node = R[node];
+		} while (node != candidate);
+	}
+	
+	private boolean increaseSum(int line) {
+		int group = lineGroup[line];
+		if (group < 0) {
+			return true;
+		}
+		
+		groupCurrentSize[group]++;
+		groupCurrentSum[group] += line % BOARD_SIZE + 1;
+		groupUsed[group] |= 1 << line % BOARD_SIZE;
+		
+		int currentSum = groupCurrentSum[group];
+		int sum = groupSum[group];
+		return currentSum <= sum && (groupCurrentSize[group] != groupSize[group] || currentSum == sum);
+	}
+	
+	private void decreaseSum(int line) {
+		int group = lineGroup[line];
+		if (group < 0) {
+			return;
+		}
+		
+		groupCurrentSize[group]--;
+		groupCurrentSum[group] -= line % BOARD_SIZE + 1;
+		groupUsed[group] &= ~(1 << line % BOARD_SIZE);
+	}
+	
+	
+	
+	private int toLineIndex(int row, int col, int val) {
+		return row * CON_SIZE + col * BOARD_SIZE + val;
+	}
+	
+	private int firstNodeOf(int line) {
+		return FIRST_NODE + line * CON_COUNT;
+	}
+	
+	protected Node toNode(int node) {
+		int line = X[node];
+		byte row = (byte) (line / CON_SIZE);
+		byte col = (byte) (line / BOARD_SIZE % BOARD_SIZE);
+		byte val = (byte) (line % BOARD_SIZE);
+		return new Node(row, col, val);
+	}
+}
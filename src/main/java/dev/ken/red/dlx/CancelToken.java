@@ -0,0 +1,19 @@
+package dev.ken.red.dlx;
+
+/**
+ * Shared flag to stop a running solve from another thread.
+ * 
+ * @author kenguyen
+ *
+ */
+public class CancelToken {
+	private volatile boolean isCancelled = false;
+	
+	public void cancel() {
+		isCancelled = true;
+	}
+	
+	public boolean isCancelled() {
+		return isCancelled;
+	}
+}
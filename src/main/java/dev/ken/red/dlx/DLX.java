@@ -332,6 +332,11 @@ class DLX {
 		for (Head next = smallest; next != main; next = next.next) {
 			if (next.getCount() < smallest.getCount()) {
 				smallest = next;
+				
+				// nothing is smaller than a dead end
+				if (smallest.getCount() == 0) {
+					break;
+				}
 			}
 		}
 		
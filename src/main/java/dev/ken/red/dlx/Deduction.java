@@ -0,0 +1,124 @@
+package dev.ken.red.dlx;
+
+/**
+ * One step of {@link LogicSolver}: either a value placed in a cell, or candidates removed from some cells.
+ * Reason cells are the house, cage or sum group the step was found in, so a hint can highlight them.
+ *
+ * @author kenguyen
+ *
+ */
+public class Deduction {
+	
+	/**
+	 * Techniques in the order they are tried, from the easiest to the hardest
+	 */
+	public enum Technique {
+		NAKED_SINGLE,		// a cell has only one candidate left
+		HIDDEN_SINGLE,		// a value has only one place left in a row, column or block
+		CAGE_COMBINATION,	// a candidate doesn't fit in any combination of its cage
+		NAKED_PAIR,			// 2 cells of a unit only have the same 2 candidates
+		HIDDEN_PAIR,		// 2 values only have the same 2 places in a house
+		INNIES_OUTIES,		// rule of 45, cells sticking in or out of some houses have a known sum
+		CAGE_SPLIT,			// rule of 45 splits a cage into 2 parts with known sums
+		NAKED_TRIPLE,
+		HIDDEN_TRIPLE
+	}
+	
+	private final Technique technique;
+	private final int[] reason;
+	
+	// placed cell and its value, cell is -1 when the deduction only removes candidates
+	private final int cell;
+	private final int value;
+	
+	// cells and removed candidates (hint h is bit h - 1)
+	private final int[] cells;
+	private final int[] masks;
+	
+	private Deduction(Technique technique, int[] reason, int cell, int value, int[] cells, int[] masks) {
+		this.technique = technique;
+		this.reason = reason;
+		this.cell = cell;
+		this.value = value;
+		this.cells = cells;
+		this.masks = masks;
+	}
+	
+	static Deduction placement(Technique technique, int[] reason, int cell, int value) {
+		return new Deduction(technique, reason, cell, value, new int[0], new int[0]);
+	}
+	
+	static Deduction elimination(Technique technique, int[] reason, int[] cells, int[] masks) {
+		return new Deduction(technique, reason, -1, 0, cells, masks);
+	}
+	
+	
+	
+	public Technique getTechnique() {
+		return technique;
+	}
+	
+	/**
+	 * @return
+	 * cells (indexed by row * size + col) which the deduction is based on
+	 */
+	public int[] getReason() {
+		return reason.clone();
+	}
+	
+	public boolean isPlacement() {
+		return cell >= 0;
+	}
+	
+	/**
+	 * @return
+	 * placed cell indexed by row * size + col, -1 if nothing is placed
+	 */
+	public int getCell() {
+		return cell;
+	}
+	
+	public int getValue() {
+		return value;
+	}
+	
+	public int getEliminationCount() {
+		return cells.length;
+	}
+	
+	public int getEliminatedCell(int i) {
+		return cells[i];
+	}
+	
+	/**
+	 * @return
+	 * candidates removed from the cell, value v is bit v - 1
+	 */
+	public int getEliminatedMask(int i) {
+		return masks[i];
+	}
+	
+	
+	
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder(technique.name());
+		if (isPlacement()) {
+			appendCell(builder, cell).append('=').append(value);
+		}
+		for (int i = 0; i < cells.length; i++) {
+			appendCell(builder, cells[i]).append('-');
+			for (int mask = masks[i]; mask != 0; mask &= mask - 1) {
+				if (mask != masks[i]) {
+					builder.append(',');
+				}
+				builder.append(Integer.numberOfTrailingZeros(mask) + 1);
+			}
+		}
+		return builder.toString();
+	}
+	
+	private static StringBuilder appendCell(StringBuilder builder, int cell) {
+		return builder.append(" r").append(cell / LogicSolver.SIZE + 1).append('c').append(cell % LogicSolver.SIZE + 1);
+	}
+}
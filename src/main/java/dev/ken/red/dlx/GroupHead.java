@@ -35,7 +35,7 @@ class GroupHead extends Head {
 	}
 	
 	@Override
-	protected byte getCount() {
-		return Byte.MAX_VALUE;
+	protected int getCount() {
+		return Integer.MAX_VALUE;
 	}
 }
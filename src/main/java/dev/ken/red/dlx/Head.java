@@ -13,7 +13,7 @@ class Head {
 	protected Node first;
 	
 	// values - keep track count of candidate in the column
-	private byte count = 0;
+	private int count = 0;
 	
 	protected void increaseCount() {
 		count++;
@@ -23,7 +23,7 @@ class Head {
 		count--;
 	}
 	
-	protected byte getCount() {
+	protected int getCount() {
 		return count;
 	}
 	
@@ -0,0 +1,887 @@
+package dev.ken.red.dlx;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import dev.ken.red.dlx.Deduction.Technique;
+import dev.ken.red.model.Block;
+import dev.ken.red.model.Board;
+import dev.ken.red.model.Cell;
+import dev.ken.red.model.CompactBoard;
+import dev.ken.red.util.Combinator;
+
+/**
+ * Third solving engine, it never guesses. Every step is one deduction a person could make
+ * (see {@link Technique}), the easiest technique which still finds something is always used first.
+ *
+ * Candidates of every cell are bits of an int (value v is bit v - 1). Cells, houses (rows, columns, blocks),
+ * cages and sum groups of the rule of 45 are targets, every target has a version which is increased
+ * when candidates of its cells change. A technique remembers the version of every target where it found
+ * nothing, so each step only looks again at targets which changed since then.
+ *
+ * @author kenguyen
+ *
+ */
+public class LogicSolver {
+	static final int SIZE = CompactBoard.SIZE;
+	private static final int CELL_COUNT = CompactBoard.CELL_COUNT;
+	private static final int FULL_MASK = (1 << SIZE) - 1;
+	private static final int HOUSE_SUM = SIZE * (SIZE + 1) / 2;
+	private static final int HOUSE_COUNT = SIZE * 3;
+	private static final Technique[] TECHNIQUES = Technique.values();
+	
+	// combinations are matched cell by cell with 2^n subsets, larger cages only get the union of combinations.
+	// Boards with more digits have too many combinations per cage, so the limit is lower
+	private static final int MATCH_LIMIT = SIZE <= 9 ? 9 : 4;
+	
+	// target ids: cells, then houses, cages and sum groups
+	private static final int HOUSE_START = CELL_COUNT;
+	private static final int CAGE_START = HOUSE_START + HOUSE_COUNT;
+	private final int GROUP_START;
+	private final int TARGET_COUNT;
+	
+	// cell state, placed cells keep the bit of their value as candidates
+	private final int[] values = new int[CELL_COUNT];
+	private final int[] candidates = new int[CELL_COUNT];
+	private int emptyCount = CELL_COUNT;
+	private boolean isBroken = false;
+	
+	// targets
+	private final int[][] targetCells;
+	private final int[] targetSums;			// sum of cages and sum groups
+	private final boolean[] isDistinct;		// cells of the target can't repeat a value
+	private final boolean[] isSplit;		// the sum group is a part of one cage
+	private final int[] versions;
+	private final int[][] seen;				// version of every target when each technique last found nothing there
+	
+	// targets and peers (cells which can't have the same value) of every cell
+	private final int[][] cellTargets;
+	private final int[][] peers;
+	
+	// buffers, nothing is allocated while looking for a deduction
+	private final int[] unplaced = new int[CELL_COUNT];
+	private final int[] allowed = new int[CELL_COUNT];
+	private final int[] local = new int[SIZE];
+	private final int[] digits = new int[SIZE];
+	private final int[] pair = new int[2];
+	private final int[] triple = new int[3];
+	private final boolean[] forward = new boolean[(MATCH_LIMIT + 1) << MATCH_LIMIT];
+	private final boolean[] backward = new boolean[(MATCH_LIMIT + 1) << MATCH_LIMIT];
+	
+	private LogicSolver(CompactBoard board) {
+		List<int[]> targets = new ArrayList<>();
+		List<Integer> sums = new ArrayList<>();
+		for (int cell = 0; cell < CELL_COUNT; cell++) {
+			targets.add(new int[] {cell});
+			sums.add(0);
+		}
+		
+		// houses, same order as the constraints of the DLX engines
+		for (int i = 0; i < SIZE; i++) {
+			int[] row = new int[SIZE];
+			int[] col = new int[SIZE];
+			int[] block = new int[SIZE];
+			int blockRow = i / Block.COUNT * Block.SIZE;
+			int blockCol = i % Block.COUNT * Block.SIZE;
+			for (int j = 0; j < SIZE; j++) {
+				row[j] = i * SIZE + j;
+				col[j] = j * SIZE + i;
+				block[j] = (blockRow + j / Block.SIZE) * SIZE + blockCol + j % Block.SIZE;
+			}
+			targets.add(row);
+			targets.add(col);
+			targets.add(block);
+			sums.add(HOUSE_SUM);
+			sums.add(HOUSE_SUM);
+			sums.add(HOUSE_SUM);
+		}
+		
+		// cages
+		int cageCount = board.getCageCount();
+		int[][] cages = new int[cageCount][];
+		int[] cageOf = new int[CELL_COUNT];
+		for (int cage = 0; cage < cageCount; cage++) {
+			cages[cage] = new int[board.getCageSize(cage)];
+		}
+		int[] filled = new int[cageCount];
+		for (int cell = 0; cell < CELL_COUNT; cell++) {
+			int cage = board.getCageId(cell);
+			cageOf[cell] = cage;
+			if (cage != CompactBoard.NO_CAGE) {
+				cages[cage][filled[cage]++] = cell;
+			}
+		}
+		for (int cage = 0; cage < cageCount; cage++) {
+			targets.add(cages[cage]);
+			sums.add(board.getCageSum(cage));
+		}
+		
+		GROUP_START = targets.size();
+		addSumGroups(targets, sums, cages, cageOf);
+		TARGET_COUNT = targets.size();
+		
+		targetCells = targets.toArray(new int[TARGET_COUNT][]);
+		targetSums = new int[TARGET_COUNT];
+		isDistinct = new boolean[TARGET_COUNT];
+		isSplit = new boolean[TARGET_COUNT];
+		for (int target = 0; target < TARGET_COUNT; target++) {
+			targetSums[target] = sums.get(target);
+			isDistinct[target] = target < GROUP_START || isDistinct(targetCells[target], cageOf);
+			int cage = cageOf[targetCells[target][0]];
+			isSplit[target] = target >= GROUP_START && isInCage(targetCells[target], cageOf, cage);
+		}
+		
+		// nothing is seen yet
+		versions = new int[TARGET_COUNT];
+		Arrays.fill(versions, 1);
+		seen = new int[TECHNIQUES.length][TARGET_COUNT];
+		
+		// targets and peers of every cell
+		int[] counts = new int[CELL_COUNT];
+		for (int[] cells : targetCells) {
+			for (int cell : cells) {
+				counts[cell]++;
+			}
+		}
+		cellTargets = new int[CELL_COUNT][];
+		for (int cell = 0; cell < CELL_COUNT; cell++) {
+			cellTargets[cell] = new int[counts[cell]];
+			counts[cell] = 0;
+		}
+		for (int target = 0; target < TARGET_COUNT; target++) {
+			for (int cell : targetCells[target]) {
+				cellTargets[cell][counts[cell]++] = target;
+			}
+		}
+		
+		peers = new int[CELL_COUNT][];
+		for (int cell = 0; cell < CELL_COUNT; cell++) {
+			BitSet cellPeers = new BitSet(CELL_COUNT);
+			for (int target : cellTargets[cell]) {
+				if (target >= HOUSE_START && target < GROUP_START) {
+					for (int peer : targetCells[target]) {
+						cellPeers.set(peer);
+					}
+				}
+			}
+			cellPeers.clear(cell);
+			peers[cell] = cellPeers.stream().toArray();
+		}
+		
+		// apply fixed cells (cells already had value)
+		Arrays.fill(candidates, FULL_MASK);
+		for (int cell = 0; cell < CELL_COUNT; cell++) {
+			int value = board.getValue(cell);
+			if (value != Cell.EMPTY_VALUE) {
+				if ((candidates[cell] & 1 << (value - 1)) == 0) {
+					isBroken = true;
+				}
+				place(cell, value);
+			}
+		}
+	}
+	
+	/**
+	 * Rule of 45: every house sums to {@link #HOUSE_SUM}. For a region of consecutive rows, consecutive columns or a block,
+	 * cages which stick out of the region leave some cells inside (innies) and some outside (outies),
+	 * the sum of each part is known from the sums of all cages touching the region.
+	 */
+	private void addSumGroups(List<int[]> targets, List<Integer> sums, int[][] cages, int[] cageOf) {
+		Set<BitSet> known = new HashSet<>();
+		for (int[] cage : cages) {
+			known.add(toBitSet(cage));
+		}
+		
+		boolean[] region = new boolean[CELL_COUNT];
+		for (int length = 1; length < SIZE; length++) {
+			for (int first = 0; first + length <= SIZE; first++) {
+				for (int kind = 0; kind < 2; kind++) {
+					Arrays.fill(region, false);
+					for (int line = first; line < first + length; line++) {
+						for (int i = 0; i < SIZE; i++) {
+							region[kind == 0 ? line * SIZE + i : i * SIZE + line] = true;
+						}
+					}
+					addSumGroups(targets, sums, cages, cageOf, region, length, known);
+				}
+			}
+		}
+		
+		for (int block = 0; block < SIZE; block++) {
+			Arrays.fill(region, false);
+			for (int cell : targets.get(HOUSE_START + block * 3 + 2)) {
+				region[cell] = true;
+			}
+			addSumGroups(targets, sums, cages, cageOf, region, 1, known);
+		}
+	}
+	
+	private void addSumGroups(List<int[]> targets, List<Integer> sums, int[][] cages, int[] cageOf,
+			boolean[] region, int houseCount, Set<BitSet> known) {
+		boolean[] isCounted = new boolean[cages.length];
+		int insideSum = 0;
+		int partialSum = 0;
+		List<Integer> innies = new ArrayList<>();
+		List<Integer> outies = new ArrayList<>();
+		
+		for (int cell = 0; cell < CELL_COUNT; cell++) {
+			if (region[cell] == false) {
+				continue;
+			}
+			
+			// a cell without cage has unknown sum, nothing can be said about the region
+			int cage = cageOf[cell];
+			if (cage == CompactBoard.NO_CAGE) {
+				return;
+			}
+			if (isCounted[cage]) {
+				continue;
+			}
+			isCounted[cage] = true;
+			
+			int inside = 0;
+			for (int member : cages[cage]) {
+				if (region[member]) {
+					inside++;
+				}
+			}
+			if (inside == cages[cage].length) {
+				insideSum += sums.get(CAGE_START + cage);
+				continue;
+			}
+			
+			partialSum += sums.get(CAGE_START + cage);
+			for (int member : cages[cage]) {
+				(region[member] ? innies : outies).add(member);
+			}
+		}
+		
+		if (innies.isEmpty()) {
+			return;
+		}
+		addSumGroup(targets, sums, cageOf, innies, HOUSE_SUM * houseCount - insideSum, known);
+		addSumGroup(targets, sums, cageOf, outies, insideSum + partialSum - HOUSE_SUM * houseCount, known);
+	}
+	
+	private void addSumGroup(List<int[]> targets, List<Integer> sums, int[] cageOf, List<Integer> cells, int sum, Set<BitSet> known) {
+		int[] group = cells.stream().mapToInt(Integer::intValue).sorted().toArray();
+		
+		// groups which may repeat a value are only useful up to 2 cells
+		if (group.length > 2 && isDistinct(group, cageOf) == false) {
+			return;
+		}
+		if (known.add(toBitSet(group))) {
+			targets.add(group);
+			sums.add(sum);
+		}
+	}
+	
+	private static BitSet toBitSet(int[] cells) {
+		BitSet bits = new BitSet(CELL_COUNT);
+		for (int cell : cells) {
+			bits.set(cell);
+		}
+		return bits;
+	}
+	
+	/**
+	 * @return
+	 * true if all cells are in the same row, column, block or cage
+	 */
+	private static boolean isDistinct(int[] cells, int[] cageOf) {
+		boolean isSameRow = true;
+		boolean isSameCol = true;
+		boolean isSameBlock = true;
+		int first = cells[0];
+		for (int cell : cells) {
+			isSameRow &= cell / SIZE == first / SIZE;
+			isSameCol &= cell % SIZE == first % SIZE;
+			isSameBlock &= blockOf(cell) == blockOf(first);
+		}
+		return isSameRow || isSameCol || isSameBlock || isInCage(cells, cageOf, cageOf[first]);
+	}
+	
+	private static boolean isInCage(int[] cells, int[] cageOf, int cage) {
+		if (cage == CompactBoard.NO_CAGE) {
+			return false;
+		}
+		for (int cell : cells) {
+			if (cageOf[cell] != cage) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	private static int blockOf(int cell) {
+		return cell / SIZE / Block.SIZE * Block.COUNT + cell % SIZE / Block.SIZE;
+	}
+	
+	
+	
+	public static LogicSolver create(CompactBoard board) {
+		return new LogicSolver(board);
+	}
+	
+	/**
+	 * Candidates are calculated from the values of the board, hints of the player are not used
+	 */
+	public static LogicSolver create(Board board) {
+		return new LogicSolver(CompactBoard.from(board));
+	}
+	
+	
+	
+	/**
+	 * Find the next deduction with the easiest technique possible and apply it.
+	 * @return
+	 * null if the board is solved, broken or no technique can go further
+	 */
+	public Deduction next() {
+		if (isBroken || emptyCount == 0) {
+			return null;
+		}
+		
+		for (Technique technique : TECHNIQUES) {
+			int[] techniqueSeen = seen[technique.ordinal()];
+			int to = rangeEnd(technique);
+			for (int target = rangeStart(technique); target < to; target++) {
+				if (techniqueSeen[target] == versions[target]) {
+					continue;
+				}
+				
+				Deduction deduction = find(technique, target);
+				if (isBroken) {
+					return null;
+				}
+				if (deduction != null) {
+					apply(deduction);
+					return deduction;
+				}
+				techniqueSeen[target] = versions[target];
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Keep applying deductions until the board is solved or stuck
+	 */
+	public List<Deduction> run() {
+		List<Deduction> deductions = new ArrayList<>();
+		for (Deduction deduction = next(); deduction != null; deduction = next()) {
+			deductions.add(deduction);
+		}
+		return deductions;
+	}
+	
+	public boolean isSolved() {
+		return emptyCount == 0 && isBroken == false;
+	}
+	
+	/**
+	 * @return
+	 * true if some cell or house ran out of candidates, the board has a wrong value
+	 */
+	public boolean isBroken() {
+		return isBroken;
+	}
+	
+	public int getValue(int cell) {
+		return values[cell];
+	}
+	
+	public int getCandidates(int cell) {
+		return candidates[cell];
+	}
+	
+	
+	
+	private int rangeStart(Technique technique) {
+		switch (technique) {
+		case NAKED_SINGLE:
+			return 0;
+		case CAGE_COMBINATION:
+			return CAGE_START;
+		case INNIES_OUTIES:
+		case CAGE_SPLIT:
+			return GROUP_START;
+		default:
+			return HOUSE_START;
+		}
+	}
+	
+	private int rangeEnd(Technique technique) {
+		switch (technique) {
+		case NAKED_SINGLE:
+			return HOUSE_START;
+		case HIDDEN_SINGLE:
+		case HIDDEN_PAIR:
+		case HIDDEN_TRIPLE:
+			return CAGE_START;
+		case INNIES_OUTIES:
+		case CAGE_SPLIT:
+			return TARGET_COUNT;
+		default:
+			return GROUP_START;
+		}
+	}
+	
+	private Deduction find(Technique technique, int target) {
+		switch (technique) {
+		case NAKED_SINGLE:
+			return findNakedSingle(target);
+		case HIDDEN_SINGLE:
+			return findHiddenSingle(target);
+		case CAGE_COMBINATION:
+			return findCombination(technique, target);
+		case NAKED_PAIR:
+			return findNakedSubset(technique, target, 2);
+		case NAKED_TRIPLE:
+			return findNakedSubset(technique, target, 3);
+		case HIDDEN_PAIR:
+			return findHiddenSubset(technique, target, 2);
+		case HIDDEN_TRIPLE:
+			return findHiddenSubset(technique, target, 3);
+		default:
+			// sum groups inside one cage are only for cage splitting, others for innies and outies
+			if (isSplit[target] != (technique == Technique.CAGE_SPLIT)) {
+				return null;
+			}
+			return findCombination(technique, target);
+		}
+	}
+	
+	private Deduction findNakedSingle(int cell) {
+		if (values[cell] == Cell.EMPTY_VALUE && Integer.bitCount(candidates[cell]) == 1) {
+			return Deduction.placement(Technique.NAKED_SINGLE, targetCells[cell], cell, valueOf(candidates[cell]));
+		}
+		return null;
+	}
+	
+	private Deduction findHiddenSingle(int house) {
+		int placed = 0;
+		int once = 0;
+		int twice = 0;
+		for (int cell : targetCells[house]) {
+			int mask = candidates[cell];
+			if (values[cell] != Cell.EMPTY_VALUE) {
+				placed |= mask;
+			}
+			else {
+				twice |= once & mask;
+				once |= mask;
+			}
+		}
+		
+		// some value has no place left
+		if ((placed | once) != FULL_MASK) {
+			isBroken = true;
+			return null;
+		}
+		
+		int singles = once & ~twice & ~placed;
+		if (singles == 0) {
+			return null;
+		}
+		int bit = singles & -singles;
+		for (int cell : targetCells[house]) {
+			if (values[cell] == Cell.EMPTY_VALUE && (candidates[cell] & bit) != 0) {
+				return Deduction.placement(Technique.HIDDEN_SINGLE, targetCells[house], cell, valueOf(bit));
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * n cells of a unit whose candidates together are only n values, no other cell of the unit can take those values
+	 */
+	private Deduction findNakedSubset(Technique technique, int unit, int n) {
+		int count = collectUnplaced(unit);
+		if (count <= n) {
+			return null;
+		}
+		
+		// the subset is copied only when a deduction is made of it
+		int[] subset = n == 2 ? pair : triple;
+		for (int a = 0; a < count; a++) {
+			int maskA = candidates[unplaced[a]];
+			if (Integer.bitCount(maskA) > n) {
+				continue;
+			}
+			for (int b = a + 1; b < count; b++) {
+				int maskB = maskA | candidates[unplaced[b]];
+				if (Integer.bitCount(maskB) > n) {
+					continue;
+				}
+				if (n == 2) {
+					subset[0] = unplaced[a];
+					subset[1] = unplaced[b];
+					Deduction deduction = eliminateOthers(technique, unit, count, subset, maskB);
+					if (deduction != null) {
+						return deduction;
+					}
+					continue;
+				}
+				for (int c = b + 1; c < count; c++) {
+					int maskC = maskB | candidates[unplaced[c]];
+					if (Integer.bitCount(maskC) != n) {
+						continue;
+					}
+					subset[0] = unplaced[a];
+					subset[1] = unplaced[b];
+					subset[2] = unplaced[c];
+					Deduction deduction = eliminateOthers(technique, unit, count, subset, maskC);
+					if (deduction != null) {
+						return deduction;
+					}
+				}
+			}
+		}
+		return null;
+	}
+	
+	private Deduction eliminateOthers(Technique technique, int unit, int count, int[] subset, int mask) {
+		if (Integer.bitCount(mask) < subset.length) {
+			isBroken = true;
+			return null;
+		}
+		
+		int found = 0;
+		for (int i = 0; i < count; i++) {
+			int cell = unplaced[i];
+			allowed[i] = FULL_MASK;
+			if ((candidates[cell] & mask) != 0 && contains(subset, cell) == false) {
+				allowed[i] = ~mask;
+				found++;
+			}
+		}
+		return found == 0 ? null : toElimination(technique, subset.clone(), count);
+	}
+	
+	/**
+	 * n values of a house which only have n places together, those cells can't take any other value
+	 */
+	private Deduction findHiddenSubset(Technique technique, int house, int n) {
+		int count = collectUnplaced(house);
+		if (count <= n) {
+			return null;
+		}
+		
+		// places of every value (bit i is unplaced[i]), values with more than n places can't be in the subset
+		int[] places = local;
+		int valueMask = 0;
+		for (int value = 0; value < SIZE; value++) {
+			places[value] = 0;
+			for (int i = 0; i < count; i++) {
+				if ((candidates[unplaced[i]] & 1 << value) != 0) {
+					places[value] |= 1 << i;
+				}
+			}
+			int placeCount = Integer.bitCount(places[value]);
+			if (placeCount >= 2 && placeCount <= n) {
+				valueMask |= 1 << value;
+			}
+		}
+		
+		for (int a = valueMask; a != 0; a &= a - 1) {
+			int valueA = Integer.numberOfTrailingZeros(a);
+			for (int b = a & a - 1; b != 0; b &= b - 1) {
+				int valueB = Integer.numberOfTrailingZeros(b);
+				int placesB = places[valueA] | places[valueB];
+				if (Integer.bitCount(placesB) > n) {
+					continue;
+				}
+				if (n == 2) {
+					Deduction deduction = keepOnly(technique, house, count, placesB, 1 << valueA | 1 << valueB);
+					if (deduction != null) {
+						return deduction;
+					}
+					continue;
+				}
+				for (int c = b & b - 1; c != 0; c &= c - 1) {
+					int valueC = Integer.numberOfTrailingZeros(c);
+					int placesC = placesB | places[valueC];
+					if (Integer.bitCount(placesC) != n) {
+						continue;
+					}
+					Deduction deduction = keepOnly(technique, house, count, placesC, 1 << valueA | 1 << valueB | 1 << valueC);
+					if (deduction != null) {
+						return deduction;
+					}
+				}
+			}
+		}
+		return null;
+	}
+	
+	private Deduction keepOnly(Technique technique, int house, int count, int places, int mask) {
+		boolean isRemoving = false;
+		for (int i = 0; i < count; i++) {
+			allowed[i] = FULL_MASK;
+			if ((places & 1 << i) != 0) {
+				allowed[i] = mask;
+				isRemoving |= (candidates[unplaced[i]] & ~mask) != 0;
+			}
+		}
+		if (isRemoving == false) {
+			return null;
+		}
+		
+		int found = 0;
+		int[] reason = new int[Integer.bitCount(places)];
+		for (int i = 0; i < count; i++) {
+			if ((places & 1 << i) != 0) {
+				reason[found++] = unplaced[i];
+			}
+		}
+		return toElimination(technique, reason, count);
+	}
+	
+	/**
+	 * Cages and sum groups: a candidate stays only if it is used by some combination of the remaining sum,
+	 * where every other cell can still take a different value of the same combination
+	 */
+	private Deduction findCombination(Technique technique, int target) {
+		int count = 0;
+		int sum = targetSums[target];
+		int used = 0;
+		for (int cell : targetCells[target]) {
+			if (values[cell] == Cell.EMPTY_VALUE) {
+				unplaced[count++] = cell;
+			}
+			else {
+				sum -= values[cell];
+				used |= candidates[cell];
+			}
+		}
+		if (count == 0) {
+			return null;
+		}
+		
+		if (count == 1) {
+			int cell = unplaced[0];
+			if (sum < 1 || sum > SIZE || (candidates[cell] & 1 << (sum - 1)) == 0
+					|| isDistinct[target] && (used & 1 << (sum - 1)) != 0) {
+				isBroken = true;
+				return null;
+			}
+			return Deduction.placement(technique, targetCells[target], cell, sum);
+		}
+		
+		if (isDistinct[target]) {
+			restrictCombinations(count, sum, used);
+		}
+		else {
+			restrictPair(sum);
+		}
+		
+		for (int i = 0; i < count; i++) {
+			if ((candidates[unplaced[i]] & allowed[i]) == 0) {
+				isBroken = true;
+				return null;
+			}
+		}
+		return toElimination(technique, targetCells[target], count);
+	}
+	
+	private void restrictCombinations(int count, int sum, int used) {
+		Arrays.fill(allowed, 0, count, 0);
+		if (count > MATCH_LIMIT) {
+			int union = Combinator.candidateMask(SIZE, count, sum, used);
+			Arrays.fill(allowed, 0, count, union);
+			return;
+		}
+		
+		int union = 0;
+		for (int i = 0; i < count; i++) {
+			union |= candidates[unplaced[i]];
+		}
+		
+		for (int combination : Combinator.combinationMasks(SIZE, count, sum)) {
+			if ((combination & used) != 0 || (combination & ~union) != 0) {
+				continue;
+			}
+			match(count, combination);
+		}
+	}
+	
+	/**
+	 * Find every value each cell can take in some assignment of the combination to the cells.
+	 * Subsets of the combination are kept as local bits: forward[i] holds subsets the first i cells can take,
+	 * backward[i] subsets the cells from i to the end can take
+	 */
+	private void match(int count, int combination) {
+		int digitCount = 0;
+		for (int mask = combination; mask != 0; mask &= mask - 1) {
+			digits[digitCount++] = Integer.numberOfTrailingZeros(mask);
+		}
+		for (int i = 0; i < count; i++) {
+			int mask = candidates[unplaced[i]];
+			local[i] = 0;
+			for (int j = 0; j < digitCount; j++) {
+				local[i] |= (mask >>> digits[j] & 1) << j;
+			}
+			if (local[i] == 0) {
+				return;
+			}
+		}
+		
+		int width = 1 << count;
+		int full = width - 1;
+		Arrays.fill(forward, 0, (count + 1) * width, false);
+		Arrays.fill(backward, 0, (count + 1) * width, false);
+		forward[0] = true;
+		for (int i = 0; i < count; i++) {
+			for (int subset = 0; subset < width; subset++) {
+				if (forward[i * width + subset]) {
+					for (int bits = local[i] & ~subset; bits != 0; bits &= bits - 1) {
+						forward[(i + 1) * width + (subset | bits & -bits)] = true;
+					}
+				}
+			}
+		}
+		if (forward[count * width + full] == false) {
+			return;
+		}
+		
+		backward[count * width] = true;
+		for (int i = count - 1; i >= 0; i--) {
+			for (int subset = 0; subset < width; subset++) {
+				if (backward[(i + 1) * width + subset]) {
+					for (int bits = local[i] & ~subset; bits != 0; bits &= bits - 1) {
+						backward[i * width + (subset | bits & -bits)] = true;
+					}
+				}
+			}
+		}
+		
+		for (int i = 0; i < count; i++) {
+			for (int subset = 0; subset < width; subset++) {
+				if (forward[i * width + subset]) {
+					for (int bits = local[i] & ~subset; bits != 0; bits &= bits - 1) {
+						int bit = bits & -bits;
+						if (backward[(i + 1) * width + (full & ~subset & ~bit)]) {
+							allowed[i] |= 1 << digits[Integer.numberOfTrailingZeros(bit)];
+						}
+					}
+				}
+			}
+		}
+	}
+	
+	/**
+	 * 2 cells which may have the same value, each candidate needs a partner in the other cell
+	 */
+	private void restrictPair(int sum) {
+		int first = candidates[unplaced[0]];
+		int second = candidates[unplaced[1]];
+		allowed[0] = 0;
+		allowed[1] = 0;
+		for (int mask = first; mask != 0; mask &= mask - 1) {
+			int value = Integer.numberOfTrailingZeros(mask) + 1;
+			int partner = sum - value;
+			if (partner >= 1 && partner <= SIZE && (second & 1 << (partner - 1)) != 0) {
+				allowed[0] |= 1 << (value - 1);
+				allowed[1] |= 1 << (partner - 1);
+			}
+		}
+	}
+	
+	
+	
+	private int collectUnplaced(int target) {
+		int count = 0;
+		for (int cell : targetCells[target]) {
+			if (values[cell] == Cell.EMPTY_VALUE) {
+				unplaced[count++] = cell;
+			}
+		}
+		return count;
+	}
+	
+	/**
+	 * @return
+	 * candidates of unplaced cells which are not allowed, null if nothing is removed
+	 */
+	private Deduction toElimination(Technique technique, int[] reason, int count) {
+		int found = 0;
+		for (int i = 0; i < count; i++) {
+			if ((candidates[unplaced[i]] & ~allowed[i]) != 0) {
+				found++;
+			}
+		}
+		if (found == 0) {
+			return null;
+		}
+		
+		int[] cells = new int[found];
+		int[] masks = new int[found];
+		found = 0;
+		for (int i = 0; i < count; i++) {
+			int removed = candidates[unplaced[i]] & ~allowed[i];
+			if (removed != 0) {
+				cells[found] = unplaced[i];
+				masks[found++] = removed;
+			}
+		}
+		return Deduction.elimination(technique, reason, cells, masks);
+	}
+	
+	private void apply(Deduction deduction) {
+		if (deduction.isPlacement()) {
+			place(deduction.getCell(), deduction.getValue());
+		}
+		for (int i = 0; i < deduction.getEliminationCount(); i++) {
+			remove(deduction.getEliminatedCell(i), deduction.getEliminatedMask(i));
+		}
+	}
+	
+	private void place(int cell, int value) {
+		int bit = 1 << (value - 1);
+		values[cell] = value;
+		candidates[cell] = bit;
+		emptyCount--;
+		touch(cell);
+		
+		for (int peer : peers[cell]) {
+			remove(peer, bit);
+		}
+	}
+	
+	private void remove(int cell, int mask) {
+		if ((candidates[cell] & mask) == 0) {
+			return;
+		}
+		
+		// a placed cell losing its value means the board is wrong
+		candidates[cell] &= ~mask;
+		if (candidates[cell] == 0 || values[cell] != Cell.EMPTY_VALUE) {
+			isBroken = true;
+		}
+		touch(cell);
+	}
+	
+	private void touch(int cell) {
+		for (int target : cellTargets[cell]) {
+			versions[target]++;
+		}
+	}
+	
+	private static boolean contains(int[] cells, int cell) {
+		for (int member : cells) {
+			if (member == cell) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	private static int valueOf(int bit) {
+		return Integer.numberOfTrailingZeros(bit) + 1;
+	}
+}
@@ -0,0 +1,219 @@
+package dev.ken.red.dlx;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+
+import dev.ken.red.model.Board;
+import dev.ken.red.model.Cell;
+import dev.ken.red.model.Group;
+import dev.ken.red.util.Combinator;
+
+/**
+ * Second solving engine, it doesn't use dancing links at all.
+ * Candidates of every cell are bits of an int (digit d is bit d - 1), rows, columns, blocks and groups
+ * keep masks of used digits, and the search always branches on the cell with fewest candidates.
+ * Group sums are pruned by {@link Combinator#candidateMask(int, int, int, int)}.
+ *
+ * Results have the same shape as {@link Solver#solve(int, int, Board)}, so both engines can be swapped.
+ *
+ * @author kenguyen
+ *
+ */
+public class MaskSolver {
+	private static final int NO_GROUP = -1;
+	
+	private final int SIZE;
+	private final int BLOCK_COUNT;
+	private final int BLOCK_SIZE;
+	private final int FULL_MASK;
+	
+	// cell values (0 means empty), cells are indexed by row * SIZE + col
+	private final int[] values;
+	private int emptyCount;
+	
+	// used digits of every unit
+	private final int[] rowMasks;
+	private final int[] colMasks;
+	private final int[] blockMasks;
+	
+	// group constraints
+	private final int[] cellGroup;
+	private final int[] groupMasks;
+	private final int[] groupRemains;	// remaining sum
+	private final int[] groupEmpties;	// remaining empty cells
+	
+	private final List<Collection<Node>> solutions = new LinkedList<>();
+	private boolean isValid = true;
+	
+	private MaskSolver(int blockCount, int blockSize, Board board) {
+		SIZE = blockCount * blockSize;
+		if (SIZE > 31) {
+			// every unit has to fit in an int mask
+			throw new RuntimeException("Board size is too large.");
+		}
+		
+		BLOCK_COUNT = blockCount;
+		BLOCK_SIZE = blockSize;
+		FULL_MASK = (1 << SIZE) - 1;
+		
+		values = new int[SIZE * SIZE];
+		emptyCount = values.length;
+		rowMasks = new int[SIZE];
+		colMasks = new int[SIZE];
+		blockMasks = new int[SIZE];
+		
+		cellGroup = new int[values.length];
+		Arrays.fill(cellGroup, NO_GROUP);
+		
+		Collection<Group> groups = board.getGroups();
+		groupMasks = new int[groups.size()];
+		groupRemains = new int[groups.size()];
+		groupEmpties = new int[groups.size()];
+		
+		int groupIndex = 0;
+		for (Group group : groups) {
+			for (Cell cell : group.getCells()) {
+				cellGroup[cell.row * SIZE + cell.col] = groupIndex;
+			}
+			groupRemains[groupIndex] = group.getSum();
+			groupEmpties[groupIndex] = group.getCells().size();
+			groupIndex++;
+		}
+		
+		// apply fixed cells (cells already had value)
+		board.forEach(cell -> {
+			if (cell.isEmpty() == false) {
+				int index = cell.row * SIZE + cell.col;
+				int value = cell.getValue();
+				if ((candidatesOf(index) & 1 << (value - 1)) == 0) {
+					isValid = false;
+				}
+				place(index, value);
+			}
+		});
+	}
+	
+	private List<Collection<Node>> run() {
+		if (isValid) {
+			find();
+		}
+		return solutions;
+	}
+	
+	private void find() {
+		
+		// the board is solved when there is no empty cell left
+		if (emptyCount == 0) {
+			solutions.add(toNodes());
+			return;
+		}
+		
+		// pick the cell which has fewest candidates
+		int best = -1;
+		int bestMask = 0;
+		int bestCount = Integer.MAX_VALUE;
+		for (int cell = 0; cell < values.length; cell++) {
+			if (values[cell] != Cell.EMPTY_VALUE) {
+				continue;
+			}
+			
+			int mask = candidatesOf(cell);
+			int count = Integer.bitCount(mask);
+			if (count < bestCount) {
+				
+				// dead end, some cell doesn't have any candidate
+				if (count == 0) {
+					return;
+				}
+				
+				best = cell;
+				bestMask = mask;
+				bestCount = count;
+				if (count == 1) {
+					break;
+				}
+			}
+		}
+		
+		// try all candidates from the smallest digit
+		for (int mask = bestMask; mask != 0; mask &= mask - 1) {
+			int value = Integer.numberOfTrailingZeros(mask) + 1;
+			place(best, value);
+			find();
+			remove(best, value);
+		}
+	}
+	
+	
+	
+	private int candidatesOf(int cell) {
+		int row = cell / SIZE;
+		int col = cell % SIZE;
+		int mask = ~(rowMasks[row] | colMasks[col] | blockMasks[blockOf(row, col)]) & FULL_MASK;
+		
+		int group = cellGroup[cell];
+		if (group != NO_GROUP) {
+			mask &= Combinator.candidateMask(SIZE, groupEmpties[group], groupRemains[group], groupMasks[group]);
+		}
+		
+		return mask;
+	}
+	
+	private void place(int cell, int value) {
+		int row = cell / SIZE;
+		int col = cell % SIZE;
+		int bit = 1 << (value - 1);
+		
+		values[cell] = value;
+		emptyCount--;
+		rowMasks[row] |= bit;
+		colMasks[col] |= bit;
+		blockMasks[blockOf(row, col)] |= bit;
+		
+		int group = cellGroup[cell];
+		if (group != NO_GROUP) {
+			groupMasks[group] |= bit;
+			groupRemains[group] -= value;
+			groupEmpties[group]--;
+		}
+	}
+	
+	private void remove(int cell, int value) {
+		int row = cell / SIZE;
+		int col = cell % SIZE;
+		int bit = ~(1 << (value - 1));
+		
+		values[cell] = Cell.EMPTY_VALUE;
+		emptyCount++;
+		rowMasks[row] &= bit;
+		colMasks[col] &= bit;
+		blockMasks[blockOf(row, col)] &= bit;
+		
+		int group = cellGroup[cell];
+		if (group != NO_GROUP) {
+			groupMasks[group] &= bit;
+			groupRemains[group] += value;
+			groupEmpties[group]++;
+		}
+	}
+	
+	private int blockOf(int row, int col) {
+		return row / BLOCK_SIZE * BLOCK_COUNT + col / BLOCK_SIZE;
+	}
+	
+	private Collection<Node> toNodes() {
+		Collection<Node> nodes = new LinkedList<>();
+		for (int cell = 0; cell < values.length; cell++) {
+			nodes.add(new Node((byte) (cell / SIZE), (byte) (cell % SIZE), (byte) (values[cell] - 1)));
+		}
+		return nodes;
+	}
+	
+	
+	
+	public static List<Collection<Node>> solve(int blockCount, int blockSize, Board board) {
+		return new MaskSolver(blockCount, blockSize, board).run();
+	}
+}
@@ -26,7 +26,7 @@ class Node {
 		this.val = val;
 	}
 	
-	protected byte unlink() {
+	protected int unlink() {
 		U.D = D;
 		D.U = U;
 		
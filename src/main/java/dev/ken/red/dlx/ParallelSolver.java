@@ -0,0 +1,148 @@
+package dev.ken.red.dlx;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import dev.ken.red.model.Board;
+
+/**
+ * Parallel version of {@link Solver}.
+ * The search tree is split at the first branching levels (every candidate of the smallest head),
+ * each branch becomes a fork/join task working on its own copy of the engine.
+ * Below the split depth a task runs the normal sequential search.
+ * All tasks share the solution counter, once the limit is reached every task stops.
+ * 
+ * @author kenguyen
+ *
+ */
+class ParallelSolver {
+	
+	// branching levels which are split into tasks, most heads have 2 - 3 candidates
+	// so this gives enough tasks to keep all cores busy
+	private static final int SPLIT_DEPTH = 4;
+	
+	private final ArrayDLX dlx;
+	private final int limit;
+	private final boolean isCounting;
+	
+	private final AtomicBoolean isStopped = new AtomicBoolean(false);
+	private final AtomicInteger count = new AtomicInteger(0);
+	private final Queue<Collection<Node>> solutions = new ConcurrentLinkedQueue<>();
+	
+	ParallelSolver(int blockCount, int blockSize, Board board, int limit, boolean isCounting) {
+		dlx = ArrayDLX.create(blockCount, blockSize);
+		dlx.applyBoardConstraints(board);
+		this.limit = limit;
+		this.isCounting = isCounting;
+	}
+	
+	private void search() {
+		if (limit > 0) {
+			ForkJoinPool.commonPool().invoke(new SearchTask(dlx, SPLIT_DEPTH));
+		}
+	}
+	
+	List<Collection<Node>> run() {
+		search();
+		return new LinkedList<>(solutions);
+	}
+	
+	int count() {
+		search();
+		return Math.min(count.get(), limit);
+	}
+	
+	/**
+	 * @return true when the limit is reached and all tasks must stop
+	 */
+	private boolean onSolution(ArrayDLX dlx) {
+		int current = count.incrementAndGet();
+		if (current > limit) {
+			return true;
+		}
+		
+		if (isCounting == false) {
+			solutions.add(dlx.getSteps());
+		}
+		
+		if (current == limit) {
+			isStopped.set(true);
+			return true;
+		}
+		return false;
+	}
+	
+	
+	
+	private class SearchTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		
+		private final ArrayDLX dlx;
+		private final int splitDepth;
+		
+		private SearchTask(ArrayDLX dlx, int splitDepth) {
+			this.dlx = dlx;
+			this.splitDepth = splitDepth;
+		}
+		
+		@Override
+		protected void compute() {
+			if (isStopped.get()) {
+				return;
+			}
+			
+			// no more head in the list, the board is solved
+			int head = dlx.findSmallestHead();
+			if (head == ArrayDLX.ROOT) {
+				onSolution(dlx);
+				return;
+			}
+			
+			// deep enough, continue sequentially on this thread
+			if (splitDepth == 0) {
+				new Branch(dlx).find(head);
+				return;
+			}
+			
+			// every good candidate becomes a new task on its own copy of the engine
+			List<SearchTask> tasks = new ArrayList<>(dlx.S[head]);
+			for (int candidate = dlx.D[head]; candidate != head; candidate = dlx.D[candidate]) {
+				ArrayDLX copy = dlx.copy();
+				if (copy.cover(candidate) == Boolean.TRUE) {
+					tasks.add(new SearchTask(copy, splitDepth - 1));
+				}
+			}
+			invokeAll(tasks);
+		}
+	}
+	
+	/**
+	 * Sequential search of a branch, solutions go to the shared counter
+	 */
+	private class Branch extends Solver {
+		private final ArrayDLX dlx;
+		
+		private Branch(ArrayDLX dlx) {
+			super(dlx);
+			this.dlx = dlx;
+		}
+		
+		@Override
+		boolean onSolution() {
+			return ParallelSolver.this.onSolution(dlx);
+		}
+		
+		@Override
+		boolean isStopped() {
+			return isStopped.get();
+		}
+	}
+}
@@ -0,0 +1,18 @@
+package dev.ken.red.dlx;
+
+/**
+ * Receives progress of a running solve, it is called on the solving thread.
+ * 
+ * @author kenguyen
+ *
+ */
+@FunctionalInterface
+public interface ProgressListener {
+	
+	/**
+	 * @param nodeCount candidates covered so far
+	 * @param depth current search depth (covered candidates)
+	 * @param solutionCount solutions found so far
+	 */
+	void onProgress(long nodeCount, int depth, int solutionCount);
+}
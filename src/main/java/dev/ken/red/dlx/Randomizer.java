@@ -1,7 +1,7 @@
 package dev.ken.red.dlx;
 
-import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Random;
 import java.util.UUID;
@@ -16,61 +16,34 @@ import dev.ken.red.model.Board;
 public class Randomizer {
 	
 	private final Random random = new Random(UUID.randomUUID().getMostSignificantBits());
-	private final DLX dlx;
+	private final ArrayDLX dlx;
 	
 	private Randomizer(int blockCount, int blockSize, Board board) {
-		dlx = new DLX(blockCount, blockSize);
+		dlx = ArrayDLX.create(blockCount, blockSize);
 		dlx.applyBoardConstraints(board);
 	}
 	
 	private Collection<Node> run() {
-		seed(dlx.main.next);
+		// candidates are tried in random order, the search stops at the first solution and keeps it covered
+		new Search(dlx, random).run(dlx.R[ArrayDLX.ROOT]);
 		return dlx.getSteps();
 	}
 	
-	private boolean seed(Head head) {
-		
-		// make a candidate list
-		List<Node> candidates = new ArrayList<Node>(head.getCount());
-		Node candidate = head.first;
-		do {
-			candidates.add(candidate);
-			candidate = candidate.D;
-		} while (candidate != head.first);
-		
-		// try all possible candidates
-		while (candidates.isEmpty() == false) {
-			
-			// pick a random candidate in the list and remove it
-			int index = random.nextInt(candidates.size());
-			candidate = candidates.get(index);
-			candidates.remove(index);
-			
-			// cover row of that candidate
-			Boolean result = dlx.cover(candidate);
-			if (result == null) {
-				// result == null means candidate didn't satisfy group sum constraints
-				// in this case, do nothing, just let randomizer try the next candidate
-				continue;
+	private SolveResult run(SolveOptions options) {
+		SolveMonitor monitor = new SolveMonitor(dlx, options, "Randomizer");
+		Search search = new Search(dlx, random) {
+			@Override
+			boolean isStopped() {
+				return monitor.isStopped(0);
 			}
-			
-			if (result == true) {
-				// if this is good candidate, continue recursively
-				Head smallest = dlx.findSmallestHead();
-				if (smallest == dlx.main) {
-					return true;
-				}
-				
-				if (seed(smallest)) {
-					return true;
-				}
-			}
-			
-			dlx.uncover();
-		}
+		};
 		
-		// if code reach here, that means there is no good candidate
-		return false;
+		// the search only stops by itself at the first solution
+		List<Collection<Node>> solutions = new LinkedList<>();
+		if (search.run(dlx.R[ArrayDLX.ROOT]) && monitor.hasStopped() == false) {
+			solutions.add(dlx.getSteps());
+		}
+		return monitor.toResult(solutions, solutions.size(), solutions.isEmpty() == false);
 	}
 	
 	
@@ -78,4 +51,12 @@ public class Randomizer {
 	public static Collection<Node> generate(int blockCount, int blockSize, Board board) {
 		return new Randomizer(blockCount, blockSize, board).run();
 	}
+	
+	/**
+	 * Bounded version of {@link #generate(int, int, Board)}, the result has at most one solution.
+	 * Limit of the options is ignored.
+	 */
+	public static SolveResult generate(int blockCount, int blockSize, Board board, SolveOptions options) {
+		return new Randomizer(blockCount, blockSize, board).run(options);
+	}
 }
@@ -0,0 +1,176 @@
+package dev.ken.red.dlx;
+
+import java.util.Random;
+
+/**
+ * Non-recursive search driver shared by {@link Solver} and {@link Randomizer}.
+ * Instead of one method call per filled cell, every level of the search is a frame in preallocated arrays:
+ * the candidates of the chosen head which are not tried yet.
+ * The loop never allocates and its depth is not limited by the thread stack.
+ * 
+ * Candidates are tried in column order, or in random order if a random generator is given.
+ * By default the search stops at the first solution and keeps it covered, override
+ * {@link #onSolution()} and {@link #isStopped()} to change that.
+ * 
+ * @author kenguyen
+ *
+ */
+class Search {
+	
+	private final ArrayDLX dlx;
+	private final Random random;
+	
+	// frames - a head has at most BOARD_SIZE candidates, and there are at most one frame per cell
+	private final int[] remains;	// candidates not tried yet of each frame
+	private final int[] candidates;	// candidates of frame i start from i * BOARD_SIZE
+	private int top = 0;
+	private int startDepth = 0;
+	private boolean isAtSolution = false;	// the last stop was at a solution, which is still covered
+	
+	Search(ArrayDLX dlx, Random random) {
+		this.dlx = dlx;
+		this.random = random;
+		
+		remains = new int[dlx.CON_SIZE + 1];
+		candidates = new int[remains.length * dlx.BOARD_SIZE];
+	}
+	
+	Search(ArrayDLX dlx) {
+		this(dlx, null);
+	}
+	
+	/**
+	 * Called every time the matrix is solved
+	 * @return true if the search must stop, the solution stays covered
+	 */
+	boolean onSolution() {
+		return true;
+	}
+	
+	/**
+	 * @return true if the search is stopped from outside
+	 */
+	boolean isStopped() {
+		return false;
+	}
+	
+	/**
+	 * Search from a head until all candidates are tried or the search is stopped.
+	 * @return
+	 * true if the search is stopped, all covered steps are kept so the caller can read or {@link #unwind()} them
+	 */
+	boolean run(int head) {
+		top = 0;
+		startDepth = dlx.getDepth();
+		isAtSolution = false;
+		push(head);
+		return loop();
+	}
+	
+	/**
+	 * Continue a search which stopped at a solution, as if {@link #onSolution()} returned false.
+	 * @return
+	 * same as {@link #run(int)}
+	 */
+	boolean resume() {
+		if (isAtSolution) {
+			isAtSolution = false;
+			dlx.uncover();
+			remains[top - 1] = 0;
+		}
+		return loop();
+	}
+	
+	private boolean loop() {
+		while (top > 0) {
+			if (isStopped()) {
+				return true;
+			}
+			
+			// all candidates of this frame are tried, go back and uncover the candidate of the previous frame
+			int frame = top - 1;
+			if (remains[frame] == 0) {
+				if (--top > 0) {
+					dlx.backtrackCount++;
+					dlx.uncover();
+				}
+				continue;
+			}
+			
+			// cover row of the next candidate, if it is good, keep going until we find the solution
+			Boolean result = dlx.cover(next(frame));
+			
+			// result == null means this candidate is the last cell of a group
+			// but it is too big or too small, nothing is covered
+			if (result == null) {
+				continue;
+			}
+			
+			if (result == true) {
+				
+				// find next smallest head in the head list
+				int smallest = dlx.findSmallestHead();
+				
+				// if there is no more head in the list, the board is solved
+				if (smallest == ArrayDLX.ROOT) {
+					if (onSolution()) {
+						isAtSolution = true;
+						return true;
+					}
+					
+					// skip other candidates of this frame so the previous frame can try its next candidate
+					dlx.uncover();
+					remains[frame] = 0;
+					continue;
+				}
+				
+				// continue with the smallest head as a new frame
+				push(smallest);
+				continue;
+			}
+			
+			// always try next candidate
+			dlx.uncover();
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Uncover all steps covered by the last {@link #run(int)}
+	 */
+	void unwind() {
+		while (dlx.getDepth() > startDepth) {
+			dlx.uncover();
+		}
+		top = 0;
+		isAtSolution = false;
+	}
+	
+	private void push(int head) {
+		int frame = top++;
+		
+		// candidates are stored backward and taken from the end, so they are tried in column order
+		int count = dlx.S[head];
+		int base = frame * dlx.BOARD_SIZE;
+		int index = base + count;
+		for (int candidate = dlx.D[head]; candidate != head; candidate = dlx.D[candidate]) {
+			candidates[--index] = candidate;
+		}
+		remains[frame] = count;
+	}
+	
+	private int next(int frame) {
+		int base = frame * dlx.BOARD_SIZE;
+		int last = base + --remains[frame];
+		if (random == null) {
+			return candidates[last];
+		}
+		
+		// pick a random candidate and move the last one into its place
+		int index = base + random.nextInt(remains[frame] + 1);
+		int candidate = candidates[index];
+		candidates[index] = candidates[last];
+		return candidate;
+	}
+}
@@ -0,0 +1,57 @@
+package dev.ken.red.dlx;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazy iterator of solutions. The search only runs when the next solution is asked for,
+ * so enumerating all solutions of an under-constrained board uses constant memory.
+ * 
+ * Every solution is a compact grid of cell values (1 based) indexed by row * size + col.
+ * 
+ * @author kenguyen
+ *
+ */
+class SolutionIterator implements Iterator<byte[]> {
+	
+	private final ArrayDLX dlx;
+	private final Search search;
+	private boolean isStarted = false;
+	private boolean isFinished = false;
+	private byte[] next;
+	
+	SolutionIterator(ArrayDLX dlx) {
+		this.dlx = dlx;
+		
+		// the search stops at every solution and keeps it covered
+		search = new Search(dlx);
+	}
+	
+	@Override
+	public boolean hasNext() {
+		if (next == null && isFinished == false) {
+			boolean isFound = isStarted ? search.resume() : search.run(dlx.R[ArrayDLX.ROOT]);
+			isStarted = true;
+			
+			if (isFound) {
+				next = new byte[dlx.CON_SIZE];
+				dlx.fillValues(next);
+			}
+			else {
+				isFinished = true;
+			}
+		}
+		return next != null;
+	}
+	
+	@Override
+	public byte[] next() {
+		if (hasNext() == false) {
+			throw new NoSuchElementException();
+		}
+		
+		byte[] values = next;
+		next = null;
+		return values;
+	}
+}
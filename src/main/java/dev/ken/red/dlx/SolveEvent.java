@@ -0,0 +1,74 @@
+package dev.ken.red.dlx;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event of a recorded solve (see {@link SolveOptions#record(String)}), its duration is the solve wall time.
+ * This is the only class which touches jdk.jfr, other classes only pass it around as an Object,
+ * so nothing fails on a runtime without flight recorder as long as this class is never loaded.
+ * 
+ * @author kenguyen
+ *
+ */
+@Name("dev.ken.red.Solve")
+@Label("Solve")
+@Category({"Red Killer", "Solver"})
+@Description("Search effort of a killer sudoku solve")
+class SolveEvent extends Event {
+	
+	@Label("Puzzle")
+	String puzzleId;
+	
+	@Label("Engine")
+	String engine;
+	
+	@Label("Result")
+	String status;
+	
+	@Label("Solutions")
+	int solutionCount;
+	
+	@Label("Covers")
+	long coverCount;
+	
+	@Label("Uncovers")
+	long uncoverCount;
+	
+	@Label("Rejections")
+	@Description("Candidates refused by the group sum check")
+	long rejectionCount;
+	
+	@Label("Backtracks")
+	long backtrackCount;
+	
+	@Label("Max Depth")
+	int maxDepth;
+	
+	static Object start() {
+		SolveEvent event = new SolveEvent();
+		event.begin();
+		return event;
+	}
+	
+	static void finish(Object started, String puzzleId, String engine, SolveResult result) {
+		SolveEvent event = (SolveEvent) started;
+		event.end();
+		if (event.shouldCommit()) {
+			SolveStatistics statistics = result.getStatistics();
+			event.puzzleId = puzzleId;
+			event.engine = engine;
+			event.status = result.getStatus().name();
+			event.solutionCount = result.getSolutionCount();
+			event.coverCount = statistics.getCoverCount();
+			event.uncoverCount = statistics.getUncoverCount();
+			event.rejectionCount = statistics.getRejectionCount();
+			event.backtrackCount = statistics.getBacktrackCount();
+			event.maxDepth = statistics.getMaxDepth();
+			event.commit();
+		}
+	}
+}
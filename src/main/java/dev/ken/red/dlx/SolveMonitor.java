@@ -0,0 +1,98 @@
+package dev.ken.red.dlx;
+
+import java.util.Collection;
+import java.util.List;
+
+import dev.ken.red.dlx.SolveResult.Status;
+
+/**
+ * Checks limits of {@link SolveOptions} while the search is running.
+ * Cancellation and node budget are checked on every step, the clock only once every {@link #CHECK_INTERVAL} steps.
+ * 
+ * @author kenguyen
+ *
+ */
+class SolveMonitor {
+	private static final int CHECK_INTERVAL = 1024;
+	
+	// flight recorder events need jdk.jfr, older Java 8 runtimes don't have it
+	private static final boolean HAS_FLIGHT_RECORDER = hasFlightRecorder();
+	
+	private final ArrayDLX dlx;
+	private final SolveOptions options;
+	private final String engine;
+	private final Object event;	// started SolveEvent, only when the solve is recorded
+	private final long startTime;
+	private final long deadline;
+	private long lastReport;
+	private int ticks = 0;
+	private Status status;	// null while the search is still allowed to run
+	
+	SolveMonitor(ArrayDLX dlx, SolveOptions options, String engine) {
+		this.dlx = dlx;
+		this.options = options;
+		this.engine = engine;
+		event = options.getPuzzleId() != null && HAS_FLIGHT_RECORDER ? SolveEvent.start() : null;
+		startTime = System.nanoTime();
+		deadline = options.getTimeout() > 0 ? startTime + options.getTimeout() * 1000000 : Long.MAX_VALUE;
+		lastReport = startTime;
+	}
+	
+	/**
+	 * @return true if the search must stop
+	 */
+	boolean isStopped(int solutionCount) {
+		CancelToken token = options.getToken();
+		if (token != null && token.isCancelled()) {
+			status = Status.CANCELLED;
+		}
+		else if (options.getNodeBudget() > 0 && dlx.nodeCount >= options.getNodeBudget()) {
+			status = Status.OUT_OF_BUDGET;
+		}
+		else if (++ticks % CHECK_INTERVAL == 0) {
+			long now = System.nanoTime();
+			if (now >= deadline) {
+				status = Status.TIMEOUT;
+			}
+			
+			ProgressListener listener = options.getListener();
+			if (listener != null && now - lastReport >= options.getProgressInterval() * 1000000) {
+				listener.onProgress(dlx.nodeCount, dlx.getDepth(), solutionCount);
+				lastReport = now;
+			}
+		}
+		
+		return status != null;
+	}
+	
+	/**
+	 * @return true if some limit already stopped the search, nothing is checked again
+	 */
+	boolean hasStopped() {
+		return status != null;
+	}
+	
+	SolveResult toResult(List<Collection<Node>> solutions, int solutionCount, boolean isLimitReached) {
+		Status result = status;
+		if (result == null) {
+			result = isLimitReached ? Status.LIMIT_REACHED : Status.COMPLETED;
+		}
+		
+		long time = (System.nanoTime() - startTime) / 1000000;
+		SolveResult solveResult = new SolveResult(result, solutions, solutionCount, time, new SolveStatistics(dlx));
+		if (event != null) {
+			SolveEvent.finish(event, options.getPuzzleId(), engine, solveResult);
+		}
+		return solveResult;
+	}
+	
+	private static boolean hasFlightRecorder() {
+		try {
+			Class.forName("jdk.jfr.Event", false, SolveMonitor.class.getClassLoader());
+			return true;
+		}
+		catch (ClassNotFoundException | LinkageError e) {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,104 @@
+package dev.ken.red.dlx;
+
+/**
+ * Limits of a bounded solve: maximum solutions, time, node budget, cancellation and progress reporting.
+ * Everything is unlimited by default.
+ * 
+ * @author kenguyen
+ *
+ */
+public class SolveOptions {
+	private int limit = Integer.MAX_VALUE;
+	private long timeout = 0;		// milliseconds from the start of the solve, 0 means no time limit
+	private long nodeBudget = 0;	// 0 means no budget
+	private CancelToken token;
+	private ProgressListener listener;
+	private long progressInterval = 0;	// milliseconds
+	private String puzzleId;		// null means no flight recorder event
+	
+	private SolveOptions() {
+	}
+	
+	public static SolveOptions create() {
+		return new SolveOptions();
+	}
+	
+	
+	
+	/**
+	 * Stop after this number of solutions
+	 */
+	public SolveOptions limit(int limit) {
+		this.limit = limit;
+		return this;
+	}
+	
+	/**
+	 * Stop when the solve runs longer than this (milliseconds)
+	 */
+	public SolveOptions timeout(long timeout) {
+		this.timeout = timeout;
+		return this;
+	}
+	
+	/**
+	 * Stop after covering this number of candidates
+	 */
+	public SolveOptions nodeBudget(long nodeBudget) {
+		this.nodeBudget = nodeBudget;
+		return this;
+	}
+	
+	public SolveOptions token(CancelToken token) {
+		this.token = token;
+		return this;
+	}
+	
+	/**
+	 * Report progress at most once every interval (milliseconds)
+	 */
+	public SolveOptions listener(ProgressListener listener, long progressInterval) {
+		this.listener = listener;
+		this.progressInterval = progressInterval;
+		return this;
+	}
+	
+	/**
+	 * Emit a flight recorder event ({@link SolveEvent}) when the solve ends, tagged with the puzzle id.
+	 * Nothing is recorded unless a recording with the event enabled is running.
+	 */
+	public SolveOptions record(String puzzleId) {
+		this.puzzleId = puzzleId;
+		return this;
+	}
+	
+	
+	
+	int getLimit() {
+		return limit;
+	}
+	
+	long getTimeout() {
+		return timeout;
+	}
+	
+	long getNodeBudget() {
+		return nodeBudget;
+	}
+	
+	CancelToken getToken() {
+		return token;
+	}
+	
+	ProgressListener getListener() {
+		return listener;
+	}
+	
+	long getProgressInterval() {
+		return progressInterval;
+	}
+	
+	String getPuzzleId() {
+		return puzzleId;
+	}
+}
@@ -0,0 +1,74 @@
+package dev.ken.red.dlx;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Result of a bounded solve. When the solve is stopped early, solutions only contain what was found so far.
+ * 
+ * @author kenguyen
+ *
+ */
+public class SolveResult {
+	
+	public enum Status {
+		COMPLETED,			// the whole search tree was explored
+		LIMIT_REACHED,		// enough solutions were found
+		TIMEOUT,
+		OUT_OF_BUDGET,		// node budget was used up
+		CANCELLED
+	}
+	
+	private final Status status;
+	private final List<Collection<Node>> solutions;
+	private final int solutionCount;
+	private final long time;	// milliseconds
+	private final SolveStatistics statistics;
+	
+	SolveResult(Status status, List<Collection<Node>> solutions, int solutionCount, long time, SolveStatistics statistics) {
+		this.status = status;
+		this.solutions = solutions;
+		this.solutionCount = solutionCount;
+		this.time = time;
+		this.statistics = statistics;
+	}
+	
+	public Status getStatus() {
+		return status;
+	}
+	
+	/**
+	 * @return true if the search wasn't stopped by time, budget or cancellation
+	 */
+	public boolean isFinished() {
+		return status == Status.COMPLETED || status == Status.LIMIT_REACHED;
+	}
+	
+	public List<Collection<Node>> getSolutions() {
+		return solutions;
+	}
+	
+	public int getSolutionCount() {
+		return solutionCount;
+	}
+	
+	/**
+	 * @return
+	 * covered candidates, same as {@link SolveStatistics#getCoverCount()}
+	 */
+	public long getNodeCount() {
+		return statistics.getCoverCount();
+	}
+	
+	public long getTime() {
+		return time;
+	}
+	
+	/**
+	 * @return
+	 * search effort of this solve, to compare how hard puzzles are for the engine
+	 */
+	public SolveStatistics getStatistics() {
+		return statistics;
+	}
+}
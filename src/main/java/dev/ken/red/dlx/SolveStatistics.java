@@ -0,0 +1,69 @@
+package dev.ken.red.dlx;
+
+/**
+ * Search effort of a bounded solve, counted by the engine since it was created.
+ * Covers of the given cells are included, they are never uncovered.
+ * Only the bounded {@link Solver#solve(int, int, dev.ken.red.model.Board, SolveOptions)} and
+ * {@link Randomizer#generate(int, int, dev.ken.red.model.Board, SolveOptions)} report it. Parallel solves, iterators,
+ * solution counts and {@link MaskSolver} don't return a {@link SolveResult}, so their effort isn't reported.
+ * 
+ * @author kenguyen
+ *
+ */
+public class SolveStatistics {
+	private final long coverCount;
+	private final long uncoverCount;
+	private final long rejectionCount;
+	private final long backtrackCount;
+	private final int maxDepth;
+	
+	SolveStatistics(ArrayDLX dlx) {
+		coverCount = dlx.nodeCount;
+		uncoverCount = dlx.uncoverCount;
+		rejectionCount = dlx.rejectionCount;
+		backtrackCount = dlx.backtrackCount;
+		maxDepth = dlx.maxDepth;
+	}
+	
+	/**
+	 * @return
+	 * covered candidates, also returned by {@link SolveResult#getNodeCount()}
+	 */
+	public long getCoverCount() {
+		return coverCount;
+	}
+	
+	public long getUncoverCount() {
+		return uncoverCount;
+	}
+	
+	/**
+	 * @return
+	 * candidates refused before covering, because they make the sum of their group too big or too small
+	 */
+	public long getRejectionCount() {
+		return rejectionCount;
+	}
+	
+	/**
+	 * @return
+	 * how many times the search tried all candidates of a cell and went back to the previous cell
+	 */
+	public long getBacktrackCount() {
+		return backtrackCount;
+	}
+	
+	/**
+	 * @return
+	 * the most cells filled at the same time, the cell count of the board when a solution is found
+	 */
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+	
+	@Override
+	public String toString() {
+		return "covers: " + coverCount + ", uncovers: " + uncoverCount + ", rejections: " + rejectionCount
+				+ ", backtracks: " + backtrackCount + ", max depth: " + maxDepth;
+	}
+}
@@ -1,10 +1,17 @@
 package dev.ken.red.dlx;
 
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+import dev.ken.red.model.Block;
 import dev.ken.red.model.Board;
+import dev.ken.red.model.CompactBoard;
 
 /**
  * 
@@ -13,59 +20,88 @@ import dev.ken.red.model.Board;
  */
 public class Solver {
 	
-	private final DLX dlx;
+	private final ArrayDLX dlx;
+	private final Search search;
 	private final List<Collection<Node>> solutions = new LinkedList<>();
 	
+	// counting mode only increases the counter, solutions are not saved
+	private boolean isCounting = false;
+	private int limit = Integer.MAX_VALUE;
+	private int count = 0;
+	
+	// only set for a bounded solve
+	private SolveMonitor monitor;
+	
 	private Solver(int blockCount, int blockSize, Board board) {
-		dlx = new DLX(blockCount, blockSize);
+		this(ArrayDLX.create(blockCount, blockSize));
 		dlx.applyBoardConstraints(board);
 	}
 	
-	private List<Collection<Node>> run() {
-		find(dlx.main.next);
-		return solutions;
-	}
-	
-	private void find(Head head) {
-		
-		// go from first candidate to last candidate
-		Node candidate = head.first;
-		do {
-			// cover row of that candidate, if it is good, keep going until we find the solution
-			Boolean result = dlx.cover(candidate);
-			
-			// result == null means this candidate is the last cell of a group
-			// but it is too big or too small
-			if (result == null) {
-				// TODO we can calculate the correct value here
-				candidate = candidate.D;
-				continue;
+	Solver(ArrayDLX dlx) {
+		this.dlx = dlx;
+		search = new Search(dlx) {
+			@Override
+			boolean onSolution() {
+				return Solver.this.onSolution();
 			}
 			
-			if (result == true) {
-				
-				// find next smallest head in the head list
-				Head smallest = dlx.findSmallestHead();
-				
-				// if there is no more head in the list, the board is solved
-				if (smallest == dlx.main) {
-					// save the solution
-					solutions.add(dlx.getSteps());
-					
-					// return so the caller can try other candidates
-					dlx.uncover();
-					return;
-				}
-				
-				// continue recursively until the board is solved
-				find(smallest);
+			@Override
+			boolean isStopped() {
+				return Solver.this.isStopped();
 			}
-			
-			// always try next candidate
-			dlx.uncover();
-			
-			candidate = candidate.D;
-		} while (candidate != head.first);
+		};
+	}
+	
+	List<Collection<Node>> run() {
+		find(dlx.R[ArrayDLX.ROOT]);
+		return solutions;
+	}
+	
+	int count(int limit) {
+		isCounting = true;
+		this.limit = limit;
+		if (limit > 0) {
+			find(dlx.R[ArrayDLX.ROOT]);
+		}
+		return count;
+	}
+	
+	private SolveResult run(SolveOptions options) {
+		monitor = new SolveMonitor(dlx, options, "Solver");
+		limit = options.getLimit();
+		if (limit > 0) {
+			find(dlx.R[ArrayDLX.ROOT]);
+		}
+		return monitor.toResult(solutions, count, count >= limit);
+	}
+	
+	/**
+	 * Called every time the matrix is solved
+	 * @return true when the limit is reached and the search must stop
+	 */
+	boolean onSolution() {
+		if (isCounting == false) {
+			solutions.add(dlx.getSteps());
+		}
+		return ++count >= limit;
+	}
+	
+	/**
+	 * @return true if the search is stopped from outside (by another solver or by limits of a bounded solve)
+	 */
+	boolean isStopped() {
+		return monitor != null && monitor.isStopped(count);
+	}
+	
+	/**
+	 * @return true when the limit is reached and the search must stop
+	 */
+	boolean find(int head) {
+		if (search.run(head)) {
+			search.unwind();
+			return true;
+		}
+		return false;
 	}
 	
 	
@@ -73,4 +109,67 @@ public class Solver {
 	public static List<Collection<Node>> solve(int blockCount, int blockSize, Board board) {
 		return new Solver(blockCount, blockSize, board).run();
 	}
+	
+	/**
+	 * Bounded solve, the search stops when it runs out of time or node budget, or when it is cancelled.
+	 * The result tells why the search stopped and keeps the solutions found so far.
+	 */
+	public static SolveResult solve(int blockCount, int blockSize, Board board, SolveOptions options) {
+		return new Solver(blockCount, blockSize, board).run(options);
+	}
+	
+	/**
+	 * Lazy version of {@link #solve(int, int, Board)}, every solution is a grid of cell values (1 based)
+	 * indexed by row * size + col. Solutions are found one by one when the caller asks for them.
+	 */
+	public static Iterator<byte[]> iterate(int blockCount, int blockSize, Board board) {
+		ArrayDLX dlx = ArrayDLX.create(blockCount, blockSize);
+		dlx.applyBoardConstraints(board);
+		return new SolutionIterator(dlx);
+	}
+	
+	public static Stream<byte[]> stream(int blockCount, int blockSize, Board board) {
+		Spliterator<byte[]> spliterator = Spliterators.spliteratorUnknownSize(iterate(blockCount, blockSize, board),
+				Spliterator.ORDERED | Spliterator.NONNULL);
+		return StreamSupport.stream(spliterator, false);
+	}
+	
+	/**
+	 * Count solutions of the board without saving them, the search stops as soon as the count reaches the limit.
+	 * Use limit 2 to check if a level has a unique solution.
+	 */
+	public static int countSolutions(int blockCount, int blockSize, Board board, int limit) {
+		return new Solver(blockCount, blockSize, board).count(limit);
+	}
+	
+	public static int countSolutions(Board board, int limit) {
+		return countSolutions(Block.COUNT, Block.SIZE, board, limit);
+	}
+	
+	public static int countSolutions(CompactBoard board, int limit) {
+		ArrayDLX dlx = ArrayDLX.create(Block.COUNT, Block.SIZE);
+		dlx.applyBoardConstraints(board);
+		return new Solver(dlx).count(limit);
+	}
+	
+	public static Iterator<byte[]> iterate(CompactBoard board) {
+		ArrayDLX dlx = ArrayDLX.create(Block.COUNT, Block.SIZE);
+		dlx.applyBoardConstraints(board);
+		return new SolutionIterator(dlx);
+	}
+	
+	/**
+	 * Same as {@link #solve(int, int, Board)} but the first branching levels are searched in parallel.
+	 * The search stops on all threads as soon as limit solutions are found, use limit 1 to find the first solution.
+	 */
+	public static List<Collection<Node>> solveParallel(int blockCount, int blockSize, Board board, int limit) {
+		return new ParallelSolver(blockCount, blockSize, board, limit, false).run();
+	}
+	
+	/**
+	 * Same as {@link #countSolutions(int, int, Board, int)} but the first branching levels are searched in parallel.
+	 */
+	public static int countSolutionsParallel(int blockCount, int blockSize, Board board, int limit) {
+		return new ParallelSolver(blockCount, blockSize, board, limit, true).count();
+	}
 }
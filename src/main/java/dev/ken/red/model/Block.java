@@ -1,19 +1,20 @@
 package dev.ken.red.model;
 
 /**
- * The board size is defined by this class
+ * The board size is defined by this class, blocks are always square and there are as many blocks as cells in a block row.
+ * Set system property dev.ken.red.blockSize to 4 or 5 for 16x16 or 25x25 boards (3 by default).
  * 
  * @author Ken
  *
  */
 public class Block extends Group {
-	public static final int COUNT = 3;
-	public static final int SIZE = 3;
+	public static final int SIZE = Integer.getInteger("dev.ken.red.blockSize", 3);
+	public static final int COUNT = SIZE;
 	public static final int SUM = (int) (Math.pow(SIZE, 4) + Math.pow(SIZE, 2)) / 2;
 	
 	public final int row;
 	public final int col;
-
+	
 	public Block(int row, int col) {
 		super(Group.NON_ID);
 		this.row = row;
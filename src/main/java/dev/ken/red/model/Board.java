@@ -1,27 +1,25 @@
 package dev.ken.red.model;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.Stack;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import dev.ken.red.model.undo.CellSnapshot;
 import dev.ken.red.model.undo.Step;
+import dev.ken.red.util.Combinator;
 
 /**
  * 
@@ -37,12 +35,56 @@ private static final Logger logger = LoggerFactory.getLogger(Board.class);
 	public static final int MIN_INDEX = 0;
 	public static final int MAX_INDEX = SIZE - 1;
 	
+	private static final int CELL_COUNT = SIZE * SIZE;
+	private static final int UNIT_COUNT = SIZE * 3;	// rows, columns and blocks
+	
+	// row, column and block peers never change, cell index is the cell hash
+	private static final int PEER_COUNT = (SIZE - 1) * 2 + (Block.SIZE - 1) * (Block.SIZE - 1);
+	private static final int[][] PEERS = new int[CELL_COUNT][PEER_COUNT];
+	private static final int[] NO_PEER = new int[0];
+	
+	static {
+		// hints and used values of every unit are int masks
+		if (SIZE > 31) {
+			throw new RuntimeException("Board size [" + SIZE + "] is too large.");
+		}
+		
+		for (int index = 0; index < CELL_COUNT; index++) {
+			int count = 0;
+			for (int other = 0; other < CELL_COUNT; other++) {
+				if (other != index && isUnitPeer(index, other)) {
+					PEERS[index][count++] = other;
+				}
+			}
+		}
+	}
+	
 	private final Cell[][] grid = new Cell[SIZE][SIZE];
+	private final Cell[] cells = new Cell[CELL_COUNT];
+	
+	// group peers which are not unit peers, rebuilt when the group of the cell changes
+	private final int[][] groupPeers = new int[CELL_COUNT][];
+	private final Group[] groupPeerOwners = new Group[CELL_COUNT];
+	private final int[] groupPeerVersions = new int[CELL_COUNT];
 	private final Block[][] blocks = new Block[Block.COUNT][Block.COUNT];
 	private Map<Integer, Group> groupMap;
 	private Cell current;
 	
-	private int validCellCount = 0;
+	// digit counters of every unit (rows, then columns, then blocks), indexed by unit * SIZE + value - 1
+	private final int[] unitCounts = new int[UNIT_COUNT * SIZE];
+	private int filledCount = 0;		// cells which have value
+	private int conflictCount = 0;		// duplicated values over all units and groups
+	private int invalidGroupCount = 0;	// groups which sum can't be reached anymore
+	
+	// states of all cells before auto(), reused by every call
+	private final byte[] autoValues = new byte[CELL_COUNT];
+	private final int[] autoHints = new int[CELL_COUNT];
+	private final boolean[] autoAffected = new boolean[CELL_COUNT];
+	
+	// cells with a single hint waiting to be solved by auto(), a cell is pushed at most twice:
+	// when auto starts and when its hints drop to one
+	private final int[] autoCandidates = new int[CELL_COUNT * 2];
+	private int autoCandidateCount;
 	
 	
 	
@@ -61,10 +103,13 @@ private static final Logger logger = LoggerFactory.getLogger(Board.class);
 			for (int col = 0; col < SIZE; col++) {
 				Cell cell = new Cell(row, col);
 				grid[row][col] = cell;
+				cells[cell.hash] = cell;
+				groupPeers[cell.hash] = NO_PEER;
+				groupPeerVersions[cell.hash] = -1;
 				
 				// add cell to corresponding block
-				int blockRow = row / 3;
-				int blockCol = col / 3;
+				int blockRow = row / Block.SIZE;
+				int blockCol = col / Block.SIZE;
 				blocks[blockRow][blockCol].addCell(cell);
 			}
 		}
@@ -93,10 +138,16 @@ private static final Logger logger = LoggerFactory.getLogger(Board.class);
 	
 	public void addGroup(Group group) {
 		groupMap.put(group.id, group);
+		invalidateGroupPeers();
+		group.setOwner(this);
+		countGroup(group);
 	}
 	
 	public void subGroup(Group group) {
 		groupMap.remove(group.id);
+		invalidateGroupPeers();
+		uncountGroup(group);
+		group.setOwner(null);
 	}
 	
 	public Cell getCurrentCell() {
@@ -111,48 +162,202 @@ private static final Logger logger = LoggerFactory.getLogger(Board.class);
 		current = grid[row][col];
 	}
 	
-	private static final int CELL_COUNT = SIZE * SIZE;
+	/**
+	 * O(1), all cells have value, there is no duplicated value and every group has the expected sum
+	 */
 	public boolean isSolved() {
-		return validCellCount == CELL_COUNT;
+		return filledCount == CELL_COUNT && conflictCount == 0 && invalidGroupCount == 0;
 	}
 	
+	/**
+	 * @return
+	 * number of duplicated values, a value appearing 3 times in a row counts as 2
+	 */
+	public int getConflictCount() {
+		return conflictCount;
+	}
 	
+	/**
+	 * @return
+	 * number of groups which total already breaks the sum
+	 */
+	public int getInvalidGroupCount() {
+		return invalidGroupCount;
+	}
 	
+	/**
+	 * O(1), the value of this cell appears more than once in its row, column, block or group
+	 */
+	public boolean isConflicting(int row, int col) {
+		Cell cell = grid[row][col];
+		if (cell.isEmpty()) {
+			return false;
+		}
+		
+		int digit = cell.getValue() - 1;
+		int block = row / Block.SIZE * Block.COUNT + col / Block.SIZE;
+		Group group = groupMap.get(cell.getGroupId());
+		return unitCounts[row * SIZE + digit] > 1
+				|| unitCounts[(SIZE + col) * SIZE + digit] > 1
+				|| unitCounts[(SIZE * 2 + block) * SIZE + digit] > 1
+				|| (group != null && group.valueCounts[digit] > 1);
+	}
+	
+	
+	
+	/**
+	 * NOTE: this API builds a new set, use {@link #getUnitPeersOf(Cell)} and {@link #getGroupPeersOf(Cell)} in hot paths
+	 */
 	public Set<Cell> findRelativeCellsOf(Cell cell) {
 		Set<Cell> relativeCells = new HashSet<Cell>();
-		
-		// relative cells in the same row
-		for (int otherCol = 0; otherCol < SIZE; otherCol++) {
-			relativeCells.add(grid[cell.row][otherCol]);
+		for (int peer : PEERS[cell.hash]) {
+			relativeCells.add(cells[peer]);
 		}
-		
-		// relative cells in the same col
-		for (int otherRow = 0; otherRow < SIZE; otherRow++) {
-			relativeCells.add(grid[otherRow][cell.col]);
+		for (int peer : getGroupPeersOf(cell)) {
+			relativeCells.add(cells[peer]);
 		}
-		
-		// relative cells in the same block
-		int blockRow = cell.row / 3;
-		int blockCol = cell.col / 3;
-		Group block = blocks[blockRow][blockCol];
-		relativeCells.addAll(block.getCells());
-		
-		// relative cells in the same group
+		return relativeCells;
+	}
+	
+	/**
+	 * @return
+	 * hashes of cells in the same row, column or block (the cell itself is excluded).
+	 * The array is shared, it must not be modified.
+	 */
+	public int[] getUnitPeersOf(Cell cell) {
+		return PEERS[cell.hash];
+	}
+	
+	/**
+	 * @return
+	 * hashes of cells in the same group which are not unit peers (the cell itself is excluded).
+	 * The array is rebuilt only when the group changes, it must not be modified.
+	 */
+	public int[] getGroupPeersOf(Cell cell) {
+		int index = cell.hash;
 		Group group = groupMap.get(cell.getGroupId());
-		relativeCells.addAll(group.getCells());
+		if (group == null) {
+			return NO_PEER;
+		}
 		
-		// make sure to not include this cell in the list itself
-		relativeCells.remove(cell);
+		// cells can be added to or removed from the group directly, so version of the group is checked too
+		if (groupPeerOwners[index] != group || groupPeerVersions[index] != group.getVersion()) {
+			int[] peers = new int[group.getCells().size()];
+			int count = 0;
+			for (Cell other : group.getCells()) {
+				if (other != cell && isUnitPeer(index, other.hash) == false) {
+					peers[count++] = other.hash;
+				}
+			}
+			
+			groupPeers[index] = count == 0 ? NO_PEER : Arrays.copyOf(peers, count);
+			groupPeerOwners[index] = group;
+			groupPeerVersions[index] = group.getVersion();
+		}
 		
-		return relativeCells;
+		return groupPeers[index];
+	}
+	
+	private void invalidateGroupPeers() {
+		Arrays.fill(groupPeerVersions, -1);
+	}
+	
+	private static boolean isUnitPeer(int index, int other) {
+		int row = index / SIZE;
+		int col = index % SIZE;
+		int otherRow = other / SIZE;
+		int otherCol = other % SIZE;
+		return row == otherRow || col == otherCol
+				|| (row / Block.SIZE == otherRow / Block.SIZE && col / Block.SIZE == otherCol / Block.SIZE);
 	}
 	
 	private void changeCellValue(Cell cell, int value) {
 		Group group = groupMap.get(cell.getGroupId());
-		group.count += value == Cell.EMPTY_VALUE ? -1 : 1;
-		group.total += value - cell.getValue();
-		
+		int oldValue = cell.getValue();
+		if (oldValue != Cell.EMPTY_VALUE) {
+			count(cell, group, oldValue, -1);
+		}
+		if (value != Cell.EMPTY_VALUE) {
+			count(cell, group, value, 1);
+		}
 		cell.setValue(value);
+		
+		// cells of a level under construction may not have group yet
+		if (group != null) {
+			group.total += value - oldValue;
+			updateValidity(group);
+		}
+	}
+	
+	/**
+	 * Increase (delta = 1) or decrease (delta = -1) counters of a value in all units and the group of the cell
+	 */
+	private void count(Cell cell, Group group, int value, int delta) {
+		int digit = value - 1;
+		int block = cell.row / Block.SIZE * Block.COUNT + cell.col / Block.SIZE;
+		conflictCount += countIn(unitCounts, cell.row * SIZE + digit, delta);
+		conflictCount += countIn(unitCounts, (SIZE + cell.col) * SIZE + digit, delta);
+		conflictCount += countIn(unitCounts, (SIZE * 2 + block) * SIZE + digit, delta);
+		filledCount += delta;
+		
+		if (group != null) {
+			conflictCount += countIn(group.valueCounts, digit, delta);
+			group.count += delta;
+		}
+	}
+	
+	/**
+	 * Keep track of groups switching between valid and invalid
+	 */
+	private void updateValidity(Group group) {
+		boolean isValid = group.isValid();
+		if (isValid == group.isCountedInvalid) {
+			group.isCountedInvalid = !isValid;
+			invalidGroupCount += isValid ? -1 : 1;
+		}
+	}
+	
+	/**
+	 * Take conflicts and validity of the group out of the board counters, called before cells or sum of the group change
+	 */
+	void uncountGroup(Group group) {
+		for (int count : group.valueCounts) {
+			if (count > 1) {
+				conflictCount -= count - 1;
+			}
+		}
+		if (group.isCountedInvalid) {
+			group.isCountedInvalid = false;
+			invalidGroupCount--;
+		}
+	}
+	
+	/**
+	 * Count values of the group from its current cells, called after cells or sum of the group change
+	 */
+	void countGroup(Group group) {
+		Arrays.fill(group.valueCounts, 0);
+		group.count = 0;
+		group.total = 0;
+		for (Cell cell : group.getCells()) {
+			if (cell.isEmpty() == false) {
+				conflictCount += countIn(group.valueCounts, cell.getValue() - 1, 1);
+				group.count++;
+				group.total += cell.getValue();
+			}
+		}
+		updateValidity(group);
+	}
+	
+	/**
+	 * @return
+	 * change of conflict count, every value beyond the first one is a conflict
+	 */
+	private static int countIn(int[] counts, int index, int delta) {
+		if (delta > 0) {
+			return counts[index]++ > 0 ? 1 : 0;
+		}
+		return --counts[index] > 0 ? -1 : 0;
 	}
 	
 	
@@ -167,11 +372,6 @@ private static final Logger logger = LoggerFactory.getLogger(Board.class);
 		Step step = new Step();
 		step.snap(cell, true);
 		
-		// if cell is valid before removing value, valid cell count is reduced
-		if (cell.isValid()) {
-			validCellCount--;
-		}
-		
 		// clear cell value
 		changeCellValue(cell, Cell.EMPTY_VALUE);
 		
@@ -182,7 +382,6 @@ private static final Logger logger = LoggerFactory.getLogger(Board.class);
 			errorCell.getErrorCells().remove(cell);
 			if (errorCell.isValid()) {
 				step.snap(errorCell, false);
-				validCellCount++;
 			}
 			iterator.remove();
 		}
@@ -205,29 +404,31 @@ private static final Logger logger = LoggerFactory.getLogger(Board.class);
 		
 		// then set new cell value and validate
 		changeCellValue(cell, value);
-		for (Cell relativeCell : findRelativeCellsOf(cell)) {
-			
-			// error linking mechanism
-			if (cell.getValue() == relativeCell.getValue() && cell.linkError(relativeCell)) {
-				step.snap(relativeCell, false);
-				validCellCount--;
-			}
-			
-			// auto mode (automatically erase hints)
-			if (isAuto && relativeCell.getHints().contains(value)) {
-				step.snap(relativeCell, false);
-				relativeCell.subHint(value);
-			}
+		for (int peer : PEERS[cell.hash]) {
+			validateRelativeCell(cell, cells[peer], isAuto, step);
 		}
-		
-		// detect game resolved
-		if (cell.isValid()) {
-			validCellCount++;
+		for (int peer : getGroupPeersOf(cell)) {
+			validateRelativeCell(cell, cells[peer], isAuto, step);
 		}
 		
 		return step;
 	}
 	
+	private void validateRelativeCell(Cell cell, Cell relativeCell, boolean isAuto, Step step) {
+		int value = cell.getValue();
+		
+		// error linking mechanism
+		if (value == relativeCell.getValue() && cell.linkError(relativeCell)) {
+			step.snap(relativeCell, false);
+		}
+		
+		// auto mode (automatically erase hints)
+		if (isAuto && relativeCell.hasHint(value)) {
+			step.snap(relativeCell, false);
+			relativeCell.subHint(value);
+		}
+	}
+	
 	public Step addCellHint(int row, int col, int hint) {
 		Cell cell = grid[row][col];
 		
@@ -263,62 +464,103 @@ private static final Logger logger = LoggerFactory.getLogger(Board.class);
 	
 	public Step auto() {
 		
-		// scan all candidates in the board and snap entire board
-		CellSnapshot[][] gridSnapshot = new CellSnapshot[SIZE][SIZE];
-		boolean[][] affectedMap = new boolean[SIZE][SIZE];
-		Stack<Cell> candidates = new Stack<Cell>();
-		forEach(cell -> {
-			gridSnapshot[cell.row][cell.col] = new CellSnapshot(cell, false);
+		// scan all candidates in the board and remember values and hints of the entire board
+		autoCandidateCount = 0;
+		for (Cell cell : cells) {
+			autoValues[cell.hash] = (byte) cell.getValue();
+			autoHints[cell.hash] = cell.getHintMask();
+			autoAffected[cell.hash] = false;
 			
-			if (cell.getHints().size() == 1) {
-				candidates.push(cell);
+			if (cell.getHintCount() == 1) {
+				autoCandidates[autoCandidateCount++] = cell.hash;
 			}
-		});
+		}
 		
 		// no undo if there is no candidates
-		if (candidates.isEmpty()) {
+		if (autoCandidateCount == 0) {
 			return null;
 		}
 		
 		// solve all candidates in the stack
-		while (candidates.isEmpty() == false) {
-			Cell candidate = candidates.pop();
-			Set<Integer> hints = candidate.getHints();
-			if (hints.isEmpty()) {
+		while (autoCandidateCount > 0) {
+			Cell candidate = cells[autoCandidates[--autoCandidateCount]];
+			int hints = candidate.getHintMask();
+			if (hints == 0) {
 				// there is a chance, other candidate removed hint of this candidate
 				// this means user solved the game wrong, stop auto at once
 				break;
 			}
-			Step step = updateCellValue(candidate.row, candidate.col, hints.iterator().next(), true);
-			
-			// scan all affected cells, put more candidates to the stack
-			for (CellSnapshot snapshot : step.snapshots) {
-				affectedMap[snapshot.row][snapshot.col] = true;
-				Cell cell = grid[snapshot.row][snapshot.col];
-				if (cell.getHints().size() == 1) {
-					candidates.push(cell);
-				}
-			}
+			autoCellValue(candidate, Integer.numberOfTrailingZeros(hints) + 1);
 		}
 		
-		// scan affected cells
-		Step step = new Step();
-		forEach(cell -> {
-			int row = cell.row;
-			int col = cell.col;
-			if (affectedMap[row][col]) {
-				CellSnapshot snapshot = gridSnapshot[row][col];
-				if (snapshot.value != grid[row][col].getValue()) {
-					// if there is change to cell value, mark this snapshot as main
-					snapshot.toogleMain(true);
-				}
-				step.snapshots.add(snapshot);
+		// snap affected cells only, if there is change to cell value, mark the snapshot as main
+		int affectedCount = 0;
+		for (Cell cell : cells) {
+			if (autoAffected[cell.hash]) {
+				affectedCount++;
 			}
-		});
+		}
+		Step step = new Step(affectedCount);
+		for (Cell cell : cells) {
+			if (autoAffected[cell.hash]) {
+				int value = autoValues[cell.hash];
+				step.snap(cell.hash, value, autoHints[cell.hash], value != cell.getValue());
+			}
+		}
 		
 		return step;
 	}
 	
+	/**
+	 * Same changes as {@link #updateCellValue(int, int, int, boolean)} in auto mode, but affected cells are only marked
+	 * and new candidates are pushed, no step is built
+	 */
+	private void autoCellValue(Cell cell, int value) {
+		autoAffected[cell.hash] = true;
+		
+		// clear the old value, cells which become valid are affected
+		if (cell.isValid() == false) {
+			for (int peer : PEERS[cell.hash]) {
+				autoUnlinkError(cell, cells[peer]);
+			}
+			for (int peer : getGroupPeersOf(cell)) {
+				autoUnlinkError(cell, cells[peer]);
+			}
+		}
+		
+		changeCellValue(cell, value);
+		for (int peer : PEERS[cell.hash]) {
+			autoValidateRelativeCell(cell, cells[peer]);
+		}
+		for (int peer : getGroupPeersOf(cell)) {
+			autoValidateRelativeCell(cell, cells[peer]);
+		}
+	}
+	
+	private void autoUnlinkError(Cell cell, Cell relativeCell) {
+		if (cell.unlinkError(relativeCell) && relativeCell.isValid()) {
+			autoAffected[relativeCell.hash] = true;
+		}
+	}
+	
+	private void autoValidateRelativeCell(Cell cell, Cell relativeCell) {
+		int value = cell.getValue();
+		
+		// error linking mechanism
+		if (value == relativeCell.getValue() && cell.linkError(relativeCell)) {
+			autoAffected[relativeCell.hash] = true;
+		}
+		
+		// erase the hint, the cell becomes a candidate when one hint is left
+		if (relativeCell.hasHint(value)) {
+			relativeCell.subHint(value);
+			autoAffected[relativeCell.hash] = true;
+			if (relativeCell.getHintCount() == 1) {
+				autoCandidates[autoCandidateCount++] = relativeCell.hash;
+			}
+		}
+	}
+	
 	/**
 	 * UNDO feature
 	 * @param step
@@ -326,35 +568,70 @@ private static final Logger logger = LoggerFactory.getLogger(Board.class);
 	 * the group ID of main UNDO cell
 	 */
 	public Set<Integer> undo(Step step) {
-		List<CellSnapshot> snapshots = step.snapshots;
-		
 		Set<Integer> groupIds = new HashSet<Integer>();
-		for (CellSnapshot snapshot : snapshots) {
-			int row = snapshot.row;
-			int col = snapshot.col;
+		for (int i = 0; i < step.size(); i++) {
+			int row = step.getRow(i);
+			int col = step.getCol(i);
 			Cell cell = grid[row][col];
 			
 			// restore value
-			if (snapshot.isMain()) {
+			if (step.isMain(i)) {
 				groupIds.add(cell.getGroupId());
 				
-				if (snapshot.value == Cell.EMPTY_VALUE) {
+				int value = step.getValue(i);
+				if (value == Cell.EMPTY_VALUE) {
 					removeCellValue(row, col);
 				}
 				else {
-					updateCellValue(row, col, snapshot.value, false);
+					updateCellValue(row, col, value, false);
 				}
 			}
 			
 			// restore hints
-			cell.clearHints();
-			for (int hint : snapshot.hints) {
-				cell.addHint(hint);
-			}
+			cell.setHintMask(step.getHints(i));
 		}
 		
 		return groupIds;
 	}
+	
+	/**
+	 * Put a cell back to a saved state, nothing is remembered for undo.
+	 * Value, counters and error links are changed in place, no {@link Step} is built and peers are read from the shared arrays.
+	 */
+	public void restoreCell(int row, int col, int value, int hints) {
+		Cell cell = grid[row][col];
+		if (cell.getValue() != value) {
+			
+			// unlink errors of the old value
+			if (cell.isValid() == false) {
+				for (int peer : PEERS[cell.hash]) {
+					cell.unlinkError(cells[peer]);
+				}
+				for (int peer : getGroupPeersOf(cell)) {
+					cell.unlinkError(cells[peer]);
+				}
+			}
+			
+			changeCellValue(cell, value);
+			
+			// link errors of the new value
+			if (value != Cell.EMPTY_VALUE) {
+				for (int peer : PEERS[cell.hash]) {
+					restoreErrorLink(cell, cells[peer]);
+				}
+				for (int peer : getGroupPeersOf(cell)) {
+					restoreErrorLink(cell, cells[peer]);
+				}
+			}
+		}
+		cell.setHintMask(hints);
+	}
+	
+	private void restoreErrorLink(Cell cell, Cell relativeCell) {
+		if (cell.getValue() == relativeCell.getValue()) {
+			cell.linkError(relativeCell);
+		}
+	}
 	//================================================================================================
 	// APIs for data manipulation, END
 	//================================================================================================
@@ -369,150 +646,119 @@ private static final Logger logger = LoggerFactory.getLogger(Board.class);
 				return;
 			}
 			
-			// only get possible combination of the group
+			// only get possible combination of the group which still contain values already in the group
 			Group group = groupMap.get(cell.getGroupId());
-			for (Combination combination : group.getCombinations()) {
-				cell.addHints(combination.values);
+			int size = group.getCells().size();
+			int mask = Combinator.remainingMask(SIZE, size, group.getSum(), group.getValueMask(), 0);
+			
+			// values in the group already break the sum, fall back to all combinations
+			if (mask == 0) {
+				mask = Combinator.unionMask(SIZE, size, group.getSum());
 			}
+			cell.addHintMask(mask);
 			
 			// exclude value of non-empty relative cells
-			for (Cell relativeCell : findRelativeCellsOf(cell)) {
-				cell.subHint(relativeCell.getValue());
+			for (int peer : PEERS[cell.hash]) {
+				cell.subHint(cells[peer].getValue());
+			}
+			for (int peer : getGroupPeersOf(cell)) {
+				cell.subHint(cells[peer].getValue());
 			}
 		});
 	}
 	
 	
 	
-	private void loadFrom(BufferedReader reader) throws IOException {
-		validCellCount = 0;
-		
-		// parse group ID & sum
-		String idLine = reader.readLine();
-		String sumLine = reader.readLine();
-		String[] ids = idLine.split(" ");
-		String[] sums = sumLine.split(" ");
+	/**
+	 * Replace groups and cells of this board with a parsed board
+	 * @param groupIds original group id of every cage of the compact board
+	 */
+	void loadFrom(CompactBoard compact, int[] groupIds) {
+		for (Group group : groupMap.values()) {
+			group.setOwner(null);
+		}
+		Arrays.fill(unitCounts, 0);
+		filledCount = 0;
+		conflictCount = 0;
+		invalidGroupCount = 0;
 		
 		// instantiate new group map
-		groupMap = new HashMap<Integer, Group>(ids.length);
-		for (int i = 0; i < ids.length; i++) {
-			int id = Integer.parseInt(ids[i]);
-			int sum = Integer.parseInt(sums[i]);
-			
-			Group group = new Group(id);
-			group.setSum(sum);
-			groupMap.put(id, group);
+		int cageCount = compact.getCageCount();
+		Group[] groups = new Group[cageCount];
+		groupMap = new HashMap<Integer, Group>(cageCount);
+		for (int cage = 0; cage < cageCount; cage++) {
+			Group group = new Group(groupIds[cage]);
+			group.setSum(compact.getCageSum(cage));
+			groupMap.put(group.id, group);
+			groups[cage] = group;
 		}
+		invalidateGroupPeers();
 		
-		// parse cells, determine which cell belongs to which group
-		reader.readLine();	// consume the blank line first
-		for (int row = 0; row < SIZE; row++) {
-			String line = reader.readLine();
-			ids = line.split(" ");
-			for (int col = 0; col < SIZE; col++) {
-				int id = Integer.parseInt(ids[col]);
-				
-				Cell cell = grid[row][col];
-				cell.setGroupId(id);
-				Group group = groupMap.get(id);
-				group.addCell(cell);
+		// determine which cell belongs to which group
+		for (int index = 0; index < CELL_COUNT; index++) {
+			int cage = compact.getCageId(index);
+			if (cage != CompactBoard.NO_CAGE) {
+				groups[cage].addCell(cells[index]);
 			}
 		}
 		
-		// parse cell details from line with format {row},{col}:{value}|{hints}
-		reader.readLine();
-		String line = reader.readLine();
-		while (line != null) {
-			String[] buffer = line.split(":");
-			String part1 = buffer[0];
-			String part2 = buffer[1];
-			
-			// parse row,col
-			buffer = part1.split(",");
-			int row = Integer.parseInt(buffer[0]);
-			int col = Integer.parseInt(buffer[1]);
-			Cell cell = grid[row][col];
-			
-			// parse value and hints
-			buffer = part2.split(";");
-			int value = Integer.parseInt(buffer[0]);
+		// counters start from empty groups, values are counted below
+		for (Group group : groups) {
+			group.setOwner(this);
+		}
+		
+		// cell details
+		for (int index = 0; index < CELL_COUNT; index++) {
+			int value = compact.getValue(index);
 			if (value == Cell.EMPTY_VALUE) {
-				String hints = buffer.length > 1 ? buffer[1] : "";
-				for (int i = 0; i < hints.length(); i++) {
-					int hint = Character.digit(hints.charAt(i), 10);
-					cell.addHint(hint);
-				}
+				cells[index].addHintMask(compact.getCandidates(index));
 			}
 			else {
-				updateCellValue(row, col, value, false);
+				updateCellValue(index / SIZE, index % SIZE, value, false);
 			}
-			
-			line = reader.readLine();
 		}
 		
 		// calculate all group combinations
-		for (Group group : groupMap.values()) {
+		for (Group group : groups) {
 			group.calculateCombinations();
 		}
 	}
 	
+	public void loadFrom(byte[] data, int offset, int length) throws IOException {
+		KsdParser parser = new KsdParser();
+		CompactBoard compact = new CompactBoard();
+		parser.parse(data, offset, length, compact);
+		loadFrom(compact, parser.getGroupIds());
+	}
+	
 	public void loadFrom(InputStream is) throws IOException {
-		InputStreamReader isr = new InputStreamReader(is);
-		BufferedReader reader = new BufferedReader(isr);
-		loadFrom(reader);
-		reader.close();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(2048);
+		byte[] buffer = new byte[2048];
+		for (int length = is.read(buffer); length >= 0; length = is.read(buffer)) {
+			bytes.write(buffer, 0, length);
+		}
+		is.close();
+		loadFrom(bytes.toByteArray(), 0, bytes.size());
 	}
 	
 	public void loadFrom(File file) throws IOException {
-		FileReader fr = new FileReader(file);
-		BufferedReader reader = new BufferedReader(fr);
-		loadFrom(reader);
-		reader.close();
+		byte[] data = Files.readAllBytes(file.toPath());
+		loadFrom(data, 0, data.length);
+	}
+	
+	public void saveTo(OutputStream os) throws IOException {
+		CompactBoard compact = new CompactBoard();
+		int[] groupIds = new int[CELL_COUNT];
+		compact.copyFrom(this, groupIds);
+		new KsdWriter().write(compact, groupIds, os);
 	}
 	
 	public void saveTo(File file) throws IOException {
-		FileWriter fw = new FileWriter(file);
-		BufferedWriter writer = new BufferedWriter(fw);
-		
-		// write id & sum lines
-		StringBuilder idLine = new StringBuilder();
-		StringBuilder sumLine = new StringBuilder();
-		for (Group group : groupMap.values()) {
-			idLine.append(String.format("%02d", group.id)).append(" ");
-			sumLine.append(String.format("%02d", group.getSum())).append(" ");
-		}
-		idLine.append("\n");
-		sumLine.append("\n\n");
-		writer.write(idLine.toString());
-		writer.write(sumLine.toString());
-		
-		// write board group map and cell details
-		StringBuilder groupString = new StringBuilder();
-		StringBuilder valueString = new StringBuilder();
-		for (int row = 0; row < SIZE; row++) {
-			for (int col = 0; col < SIZE; col++) {
-				Cell cell = grid[row][col];
-				int groupId = cell.getGroupId();
-				String data = groupId == Group.NON_ID ? "__" : String.format("%02d", groupId);
-				groupString.append(data).append(" ");
-				
-				// write cell value (0 for empty cell)
-				valueString.append(String.format("%d,%d:%d;", row, col, cell.getValue()));
-				// write hints (if exists)
-				for (int hint : cell.getHints()) {
-					valueString.append(hint);
-				}
-				valueString.append("\n");
-			}
-			groupString.append("\n");
+		try (OutputStream os = new FileOutputStream(file)) {
+			saveTo(os);
 		}
-		groupString.append("\n");
-		writer.write(groupString.toString());
-		writer.write(valueString.toString());
-		
-		writer.close();
 	}
-
+	
 	
 	
 	protected static int hash(int row, int col) {
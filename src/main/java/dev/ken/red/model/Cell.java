@@ -1,6 +1,9 @@
 package dev.ken.red.model;
 
+import java.util.AbstractSet;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 
@@ -19,13 +22,14 @@ public class Cell {
 	
 	private int value = EMPTY_VALUE;
 	private int groupId = 0;
-	private Set<Integer> hints = new HashSet<Integer>();
+	private int hints = 0;	// hint h is bit (h - 1)
+	private final Set<Integer> hintView = new HintView();
 	
 	private Set<Cell> errorCells = new HashSet<Cell>();
 	
 	private boolean isLocked = false;
 	
-
+	
 	
 	public Cell(int row, int col) {
 		this.row = row;
@@ -40,7 +44,7 @@ public class Cell {
 	public void setGroupId(int groupId) {
 		this.groupId = groupId;
 	}
-
+	
 	/**
 	 * value is 1-based, 0 means empty value
 	 * @return
@@ -49,10 +53,26 @@ public class Cell {
 		return value;
 	}
 	
+	/**
+	 * NOTE: this is a read-only view of the hint mask, it always reflects current hints.
+	 * Prefer mask accessors in hot paths, they don't box any value.
+	 */
 	public Set<Integer> getHints() {
+		return hintView;
+	}
+	
+	public int getHintMask() {
 		return hints;
 	}
 	
+	public boolean hasHint(int hint) {
+		return (hints & 1 << (hint - 1)) != 0;
+	}
+	
+	public int getHintCount() {
+		return Integer.bitCount(hints);
+	}
+	
 	public Set<Cell> getErrorCells() {
 		return errorCells;
 	}
@@ -77,25 +97,32 @@ public class Cell {
 	
 	protected void setValue(int value) {
 		this.value = value;
-		hints.clear();
+		hints = 0;
 	}
 	
-	protected void addHints(int... hints) {
-		for (int hint : hints) {
-			this.hints.add(hint);
-		}
+	protected void setHintMask(int hints) {
+		this.hints = hints;
+	}
+	
+	protected void addHintMask(int hints) {
+		this.hints |= hints;
 	}
 	
 	protected void addHint(int hint) {
-		hints.add(hint);
+		hints |= 1 << (hint - 1);
 	}
 	
+	/**
+	 * NOTE: empty value (0) is ignored
+	 */
 	protected void subHint(int hint) {
-		hints.remove(hint);
+		if (hint != EMPTY_VALUE) {
+			hints &= ~(1 << (hint - 1));
+		}
 	}
 	
 	protected void clearHints() {
-		hints.clear();
+		hints = 0;
 	}
 	
 	
@@ -135,6 +162,46 @@ public class Cell {
 	}
 	
 	
+	/**
+	 * Set view of the hint mask for callers which still work with boxed hints
+	 */
+	private class HintView extends AbstractSet<Integer> {
+		
+		@Override
+		public boolean contains(Object o) {
+			return o instanceof Integer && hasHint((Integer) o);
+		}
+		
+		@Override
+		public int size() {
+			return Integer.bitCount(hints);
+		}
+		
+		@Override
+		public Iterator<Integer> iterator() {
+			return new Iterator<Integer>() {
+				private int remain = hints;
+				
+				@Override
+				public boolean hasNext() {
+					return remain != 0;
+				}
+				
+				@Override
+				public Integer next() {
+					if (remain == 0) {
+						throw new NoSuchElementException();
+					}
+					int hint = Integer.numberOfTrailingZeros(remain) + 1;
+					remain &= remain - 1;
+					return hint;
+				}
+			};
+		}
+	}
+	
+	
+	
 	@Override
 	public String toString() {
 		return String.format("(%d,%d):%d", row, col, value);
@@ -0,0 +1,157 @@
+package dev.ken.red.model;
+
+import java.util.Arrays;
+
+/**
+ * Compact board for headless and batch processing, it only keeps primitive arrays (less than 1 KB)
+ * and never touches cells, blocks or groups, so the same instance can be reused for many boards.
+ * 
+ * Cells are indexed by row * SIZE + col, cages are indexed from 0 in the order they are added.
+ * 
+ * @author kenguyen
+ *
+ */
+public class CompactBoard {
+	public static final int SIZE = Board.SIZE;
+	public static final int CELL_COUNT = SIZE * SIZE;
+	public static final short NO_CAGE = -1;
+	
+	private final byte[] values = new byte[CELL_COUNT];			// 0 means empty
+	private final int[] candidates = new int[CELL_COUNT];		// same as cell hints, value v is bit (v - 1)
+	private final short[] cageIds = new short[CELL_COUNT];		// a 25x25 board can have more than 127 cages
+	private final short[] cageSums = new short[CELL_COUNT];
+	private final short[] cageSizes = new short[CELL_COUNT];
+	private int cageCount = 0;
+	
+	public CompactBoard() {
+		clear();
+	}
+	
+	public void clear() {
+		Arrays.fill(values, (byte) Cell.EMPTY_VALUE);
+		Arrays.fill(candidates, 0);
+		Arrays.fill(cageIds, NO_CAGE);
+		cageCount = 0;
+	}
+	
+	
+	
+	public int getValue(int index) {
+		return values[index];
+	}
+	
+	public void setValue(int index, int value) {
+		values[index] = (byte) value;
+	}
+	
+	public int getCandidates(int index) {
+		return candidates[index];
+	}
+	
+	public void setCandidates(int index, int mask) {
+		candidates[index] = mask;
+	}
+	
+	public int getCageId(int index) {
+		return cageIds[index];
+	}
+	
+	public int getCageCount() {
+		return cageCount;
+	}
+	
+	public int getCageSum(int cage) {
+		return cageSums[cage];
+	}
+	
+	public int getCageSize(int cage) {
+		return cageSizes[cage];
+	}
+	
+	/**
+	 * @return
+	 * id of the new cage
+	 */
+	public int addCage(int sum) {
+		int cage = cageCount++;
+		cageSums[cage] = (short) sum;
+		cageSizes[cage] = 0;
+		return cage;
+	}
+	
+	public void setCage(int index, int cage) {
+		if (cageIds[index] != NO_CAGE) {
+			cageSizes[cageIds[index]]--;
+		}
+		cageIds[index] = (short) cage;
+		cageSizes[cage]++;
+	}
+	
+	
+	
+	/**
+	 * Overwrite this board with groups, values and hints of a board
+	 */
+	public void copyFrom(Board board) {
+		copyFrom(board, null);
+	}
+	
+	/**
+	 * @param groupIds filled with the original group id of every cage, can be null
+	 */
+	public void copyFrom(Board board, int[] groupIds) {
+		clear();
+		for (Group group : board.getGroups()) {
+			int cage = addCage(group.getSum());
+			if (groupIds != null) {
+				groupIds[cage] = group.id;
+			}
+			for (Cell cell : group.getCells()) {
+				setCage(cell.hash, cage);
+			}
+		}
+		
+		board.forEach(cell -> {
+			values[cell.hash] = (byte) cell.getValue();
+			candidates[cell.hash] = cell.getHintMask();
+		});
+	}
+	
+	public static CompactBoard from(Board board) {
+		CompactBoard compact = new CompactBoard();
+		compact.copyFrom(board);
+		return compact;
+	}
+	
+	/**
+	 * @return
+	 * a new board, group ids are cage ids + 1
+	 */
+	public Board toBoard() {
+		Board board = new Board();
+		for (int cage = 0; cage < cageCount; cage++) {
+			Group group = new Group(cage + 1);
+			group.setSum(cageSums[cage]);
+			board.addGroup(group);
+		}
+		for (int index = 0; index < CELL_COUNT; index++) {
+			if (cageIds[index] != NO_CAGE) {
+				Cell cell = board.getCell(index / SIZE, index % SIZE);
+				board.getGroup(cageIds[index] + 1).addCell(cell);
+			}
+		}
+		for (Group group : board.getGroups()) {
+			group.calculateCombinations();
+		}
+		
+		board.forEach(cell -> {
+			if (values[cell.hash] != Cell.EMPTY_VALUE) {
+				board.updateCellValue(cell.row, cell.col, values[cell.hash], false);
+			}
+			else {
+				cell.setHintMask(candidates[cell.hash]);
+			}
+		});
+		return board;
+	}
+}
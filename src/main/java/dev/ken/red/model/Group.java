@@ -21,6 +21,9 @@ public class Group {
 	
 	protected int count = 0;	// how many cells had value
 	protected int total = 0;	// total value of cells currently
+	protected final int[] valueCounts = new int[Board.SIZE];	// how many cells have each value (0-based)
+	protected boolean isCountedInvalid = false;	// board counted this group as invalid at the last value change
+	private Board owner;	// board which counts values of this group, it recounts when cells or sum change
 	
 	// statistics
 	private int min, max, avg, sum;
@@ -28,31 +31,38 @@ public class Group {
 	private final Map<Integer, Cell> cellMap = new LinkedHashMap<>();	// want to keep insertion order
 	private final Set<Combination> combinations = new LinkedHashSet<Combination>();
 	private int smallest = Integer.MAX_VALUE;	// remember smallest hash which is the top left cell
+	private int version = 0;	// increased every time cells are added or removed
 	
 	public Group(int id) {
 		this.id = id;
 	}
 	
 	public void addCell(Cell cell) {
+		uncount();
 		cell.setGroupId(id);
 		cellMap.put(cell.hash, cell);
+		version++;
 		updateStatistics();
 		
 		// remember smallest hash
 		if (smallest > cell.hash) {
 			smallest = cell.hash;
 		}
+		recount();
 	}
 	
 	public void subCell(Cell cell) {
+		uncount();
 		cell.setGroupId(NON_ID);
 		cellMap.remove(cell.hash);
+		version++;
 		updateStatistics();
 		
 		// if top left cell is removed, detect other one
 		if (cellMap.isEmpty() == false && smallest == cell.hash) {
 			smallest = cellMap.keySet().stream().min(Comparator.comparingInt(hash -> hash)).get();
 		}
+		recount();
 	}
 	
 	// [BETA] remove all cells (the oldest ones) until the group size is as expected
@@ -64,6 +74,26 @@ public class Group {
 		}
 	}
 	
+	protected int getVersion() {
+		return version;
+	}
+	
+	void setOwner(Board owner) {
+		this.owner = owner;
+	}
+	
+	private void uncount() {
+		if (owner != null) {
+			owner.uncountGroup(this);
+		}
+	}
+	
+	private void recount() {
+		if (owner != null) {
+			owner.countGroup(this);
+		}
+	}
+	
 	public Cell getTopLeftCell() {
 		return cellMap.get(smallest);
 	}
@@ -71,8 +101,8 @@ public class Group {
 	private void updateStatistics() {
 		int size = cellMap.size();
 		min = (size * size + size) / 2;
-		max = (19 * size - size * size) / 2;
-		avg = size * 5;
+		max = ((Board.SIZE * 2 + 1) * size - size * size) / 2;
+		avg = size * (Board.SIZE + 1) / 2;
 	}
 	
 	public int getMin() {
@@ -88,17 +118,33 @@ public class Group {
 	}
 	
 	public void setSum(int sum) {
+		uncount();
 		this.sum = sum;
+		recount();
 	}
 	
 	public int getSum() {
 		return sum;
 	}
-
+	
 	public int getTotal() {
 		return total;
 	}
 	
+	/**
+	 * @return
+	 * mask of values already in the group (value v is bit v - 1)
+	 */
+	public int getValueMask() {
+		int mask = 0;
+		for (Cell cell : cellMap.values()) {
+			if (cell.isEmpty() == false) {
+				mask |= 1 << (cell.getValue() - 1);
+			}
+		}
+		return mask;
+	}
+	
 	public Collection<Cell> getCells() {
 		return cellMap.values();
 	}
@@ -126,14 +172,14 @@ public class Group {
 	 * NOTE: this API is called on demand
 	 */
 	public void calculateCombinations() {
-		Set<int[]> results = Combinator.calculate(cellMap.size(), sum);
-		if (results.isEmpty()) {
+		int[] masks = Combinator.combinationMasks(Board.SIZE, cellMap.size(), sum);
+		if (masks.length == 0) {
 			throw new RuntimeException("Group size [" + cellMap.size() + "] and sum [" + sum + "] are invalid.");
 		}
 		
 		combinations.clear();
-		for (int[] result : results) {
-			Combination combination = new Combination(result, true);
+		for (int mask : masks) {
+			Combination combination = new Combination(Combinator.toValues(mask), true);
 			this.combinations.add(combination);
 		}
 	}
@@ -0,0 +1,48 @@
+package dev.ken.red.model;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a .ksd file is malformed, it tells exactly where the parser stopped.
+ * 
+ * @author kenguyen
+ *
+ */
+public class KsdFormatException extends IOException {
+	private static final long serialVersionUID = 1L;
+	
+	private final int offset;
+	private final int line;
+	private final int column;
+	
+	public KsdFormatException(String message, int offset, int line, int column) {
+		super(message + " at line " + line + ", column " + column + " (offset " + offset + ")");
+		this.offset = offset;
+		this.line = line;
+		this.column = column;
+	}
+	
+	/**
+	 * @return
+	 * byte offset from the start of the data, 0-based
+	 */
+	public int getOffset() {
+		return offset;
+	}
+	
+	/**
+	 * @return
+	 * 1-based
+	 */
+	public int getLine() {
+		return line;
+	}
+	
+	/**
+	 * @return
+	 * 1-based
+	 */
+	public int getColumn() {
+		return column;
+	}
+}
@@ -0,0 +1,259 @@
+package dev.ken.red.model;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Byte level parser of the .ksd format, it reads straight from a byte array or a byte buffer into a {@link CompactBoard}.
+ * No String is created while parsing, and one parser can be reused for any number of boards.
+ * 
+ * Format:
+ * <pre>
+ * {group ids separated by spaces}
+ * {group sums separated by spaces, same order as ids}
+ * 
+ * {SIZE lines of SIZE group ids, __ means the cell has no group}
+ * 
+ * {row},{col}:{value};{hints}		one line per cell, hints are digits without separator
+ * </pre>
+ * Boards larger than 9x9 have multi-digit values, so their hints are separated by commas.
+ * 
+ * @author kenguyen
+ *
+ */
+public class KsdParser {
+	private static final int SIZE = CompactBoard.SIZE;
+	private static final int CELL_COUNT = CompactBoard.CELL_COUNT;
+	
+	// source, exactly one of them is set while parsing
+	private byte[] array;
+	private ByteBuffer buffer;
+	private int start;
+	private int position;
+	private int end;
+	
+	// error positions
+	private int line;
+	private int lineStart;
+	
+	// original group id of every cage
+	private final int[] groupIds = new int[CELL_COUNT];
+	private int lastCage = 0;
+	
+	public void parse(byte[] data, int offset, int length, CompactBoard board) throws KsdFormatException {
+		array = data;
+		buffer = null;
+		parse(offset, offset + length, board);
+	}
+	
+	/**
+	 * Parse from position to limit of the buffer, the position is not moved
+	 */
+	public void parse(ByteBuffer data, CompactBoard board) throws KsdFormatException {
+		array = null;
+		buffer = data;
+		parse(data.position(), data.limit(), board);
+	}
+	
+	/**
+	 * @return
+	 * group ids of cages of the last parsed board, indexed by cage id. The array is reused by the next parse.
+	 */
+	public int[] getGroupIds() {
+		return groupIds;
+	}
+	
+	
+	
+	private void parse(int from, int to, CompactBoard board) throws KsdFormatException {
+		start = from;
+		position = from;
+		end = to;
+		line = 1;
+		lineStart = from;
+		lastCage = 0;
+		board.clear();
+		
+		// group ids
+		int cageCount = 0;
+		for (skipSpaces(); isLineEnd() == false; skipSpaces()) {
+			if (cageCount == CELL_COUNT) {
+				throw error("Too many groups");
+			}
+			groupIds[cageCount++] = readInt();
+		}
+		nextLine();
+		
+		// group sums, one for every id
+		for (int cage = 0; cage < cageCount; cage++) {
+			skipSpaces();
+			board.addCage(readInt());
+		}
+		endLine();
+		endLine();	// blank line
+		
+		// group map
+		for (int row = 0; row < SIZE; row++) {
+			for (int col = 0; col < SIZE; col++) {
+				skipSpaces();
+				if (peek() == '_') {
+					expect('_');
+					expect('_');
+					continue;
+				}
+				board.setCage(row * SIZE + col, cageOf(readInt(), cageCount));
+			}
+			endLine();
+		}
+		
+		// cell details, the blank line before them is optional as well as blank lines at the end
+		while (position < end) {
+			if (isLineEnd()) {
+				nextLine();
+				continue;
+			}
+			
+			int row = readIndex();
+			expect(',');
+			int col = readIndex();
+			expect(':');
+			int value = readValue(Cell.EMPTY_VALUE);
+			int index = row * SIZE + col;
+			board.setValue(index, value);
+			
+			// hints only matter when the cell is empty
+			if (position < end && peek() == ';') {
+				position++;
+				int hints = 0;
+				while (isLineEnd() == false) {
+					if (hints != 0 && SIZE > 9) {
+						expect(',');
+					}
+					hints |= 1 << (readValue(1) - 1);
+				}
+				if (value == Cell.EMPTY_VALUE) {
+					board.setCandidates(index, hints);
+				}
+			}
+			endLine();
+		}
+	}
+	
+	
+	
+	private byte peek() {
+		return array != null ? array[position] : buffer.get(position);
+	}
+	
+	private boolean isLineEnd() {
+		if (position >= end) {
+			return true;
+		}
+		byte b = peek();
+		return b == '\n' || b == '\r';
+	}
+	
+	private void skipSpaces() {
+		while (position < end && peek() == ' ') {
+			position++;
+		}
+	}
+	
+	/**
+	 * Move to the start of the next line (\n, \r\n or end of data)
+	 */
+	private void nextLine() {
+		if (position < end && peek() == '\r') {
+			position++;
+		}
+		if (position < end && peek() == '\n') {
+			position++;
+		}
+		line++;
+		lineStart = position;
+	}
+	
+	/**
+	 * Only trailing spaces are allowed before the end of the line
+	 */
+	private void endLine() throws KsdFormatException {
+		skipSpaces();
+		if (isLineEnd() == false) {
+			throw error("Unexpected character '" + (char) peek() + "'");
+		}
+		nextLine();
+	}
+	
+	private void expect(char c) throws KsdFormatException {
+		if (position >= end || peek() != c) {
+			throw error("Expected '" + c + "'");
+		}
+		position++;
+	}
+	
+	private int readInt() throws KsdFormatException {
+		if (position >= end || peek() < '0' || peek() > '9') {
+			throw error("Expected a number");
+		}
+		
+		int value = 0;
+		while (position < end && peek() >= '0' && peek() <= '9') {
+			value = value * 10 + peek() - '0';
+			if (value > 0xFFFF) {
+				throw error("Number is too large");
+			}
+			position++;
+		}
+		return value;
+	}
+	
+	private int readIndex() throws KsdFormatException {
+		int from = position;
+		int index = readInt();
+		if (index >= SIZE) {
+			position = from;
+			throw error("Index " + index + " is out of the board");
+		}
+		return index;
+	}
+	
+	/**
+	 * Single digit for boards up to 9x9, a number otherwise
+	 */
+	private int readValue(int min) throws KsdFormatException {
+		int from = position;
+		int value = -1;
+		if (position < end && peek() >= '0' && peek() <= '9') {
+			if (SIZE > 9) {
+				value = readInt();
+			}
+			else {
+				value = peek() - '0';
+				position++;
+			}
+		}
+		
+		if (value < min || value > SIZE) {
+			position = from;
+			throw error("Expected a value from " + min + " to " + SIZE);
+		}
+		return value;
+	}
+	
+	private int cageOf(int groupId, int cageCount) throws KsdFormatException {
+		// cells of the same group usually come together, so the last cage is checked first
+		if (lastCage < cageCount && groupIds[lastCage] == groupId) {
+			return lastCage;
+		}
+		for (int cage = 0; cage < cageCount; cage++) {
+			if (groupIds[cage] == groupId) {
+				lastCage = cage;
+				return cage;
+			}
+		}
+		throw error("Group " + groupId + " has no sum");
+	}
+	
+	private KsdFormatException error(String message) {
+		return new KsdFormatException(message, position - start, line, position - lineStart + 1);
+	}
+}
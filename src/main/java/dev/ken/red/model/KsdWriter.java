@@ -0,0 +1,97 @@
+package dev.ken.red.model;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Byte level writer of the .ksd format (see {@link KsdParser}), it writes a {@link CompactBoard}
+ * through one reusable buffer without formatting any String.
+ * 
+ * @author kenguyen
+ *
+ */
+public class KsdWriter {
+	private static final int SIZE = CompactBoard.SIZE;
+	private static final int CELL_COUNT = CompactBoard.CELL_COUNT;
+	
+	// large enough for as many cages as cells with 5 digit ids, and all hints in every cell
+	private final byte[] buffer = new byte[CELL_COUNT * (32 + SIZE * 3)];
+	private int position;
+	
+	/**
+	 * @param groupIds original group id of every cage, null to use cage ids as group ids
+	 */
+	public void write(CompactBoard board, int[] groupIds, OutputStream os) throws IOException {
+		position = 0;
+		
+		// id & sum lines
+		int cageCount = board.getCageCount();
+		for (int cage = 0; cage < cageCount; cage++) {
+			writeNumber(groupIds == null ? cage : groupIds[cage]);
+			buffer[position++] = ' ';
+		}
+		buffer[position++] = '\n';
+		for (int cage = 0; cage < cageCount; cage++) {
+			writeNumber(board.getCageSum(cage));
+			buffer[position++] = ' ';
+		}
+		buffer[position++] = '\n';
+		buffer[position++] = '\n';
+		
+		// group map
+		for (int index = 0; index < CELL_COUNT; index++) {
+			int cage = board.getCageId(index);
+			if (cage == CompactBoard.NO_CAGE) {
+				buffer[position++] = '_';
+				buffer[position++] = '_';
+			}
+			else {
+				writeNumber(groupIds == null ? cage : groupIds[cage]);
+			}
+			buffer[position++] = ' ';
+			if (index % SIZE == SIZE - 1) {
+				buffer[position++] = '\n';
+			}
+		}
+		buffer[position++] = '\n';
+		
+		// cell details
+		for (int index = 0; index < CELL_COUNT; index++) {
+			writeInt(index / SIZE);
+			buffer[position++] = ',';
+			writeInt(index % SIZE);
+			buffer[position++] = ':';
+			writeInt(board.getValue(index));
+			buffer[position++] = ';';
+			
+			// multi-digit hints are separated
+			int mask = board.getCandidates(index);
+			for (int bits = mask; bits != 0; bits &= bits - 1) {
+				if (SIZE > 9 && bits != mask) {
+					buffer[position++] = ',';
+				}
+				writeInt(Integer.numberOfTrailingZeros(bits) + 1);
+			}
+			buffer[position++] = '\n';
+		}
+		
+		os.write(buffer, 0, position);
+	}
+	
+	/**
+	 * At least 2 digits, same as %02d
+	 */
+	private void writeNumber(int number) {
+		if (number < 10) {
+			buffer[position++] = '0';
+		}
+		writeInt(number);
+	}
+	
+	private void writeInt(int number) {
+		if (number >= 10) {
+			writeInt(number / 10);
+		}
+		buffer[position++] = (byte) ('0' + number % 10);
+	}
+}
@@ -1,15 +1,98 @@
 package dev.ken.red.model.undo;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
+import dev.ken.red.model.Board;
 import dev.ken.red.model.Cell;
 
+/**
+ * States of the cells before a move, one long per cell snapshot with the same layout as {@link UndoLog}:
+ * <pre>
+ * bits 0 - 15	cell index (row * size + col)
+ * bits 16 - 23	value
+ * bits 24 - 31	flags (main cell)
+ * bits 32 - 63	hint mask
+ * </pre>
+ *
+ * @author kenguyen
+ *
+ */
 public class Step {
-	public final List<CellSnapshot> snapshots = new ArrayList<CellSnapshot>();
+	static final int FLAG_MAIN = 2;
+	
+	private long[] records;
+	private int size = 0;
+	
+	public Step() {
+		this(8);
+	}
+	
+	/**
+	 * @param capacity
+	 * number of cell snapshots which fit without growing
+	 */
+	public Step(int capacity) {
+		records = new long[Math.max(capacity, 1)];
+	}
 	
 	public void snap(Cell cell, boolean isMain) {
-		CellSnapshot snapshot = new CellSnapshot(cell, isMain);
-		snapshots.add(snapshot);
+		snap(cell.hash, cell.getValue(), cell.getHintMask(), isMain);
+	}
+	
+	/**
+	 * @param isMain
+	 * this cell change affects value
+	 */
+	public void snap(int index, int value, int hints, boolean isMain) {
+		if (size == records.length) {
+			records = Arrays.copyOf(records, size << 1);
+		}
+		records[size++] = pack(index, value, hints, isMain ? FLAG_MAIN : 0);
+	}
+	
+	/**
+	 * @return
+	 * number of cell snapshots
+	 */
+	public int size() {
+		return size;
+	}
+	
+	public int getCellIndex(int i) {
+		return (int) records[i] & 0xFFFF;
+	}
+	
+	public int getRow(int i) {
+		return getCellIndex(i) / Board.SIZE;
+	}
+	
+	public int getCol(int i) {
+		return getCellIndex(i) % Board.SIZE;
+	}
+	
+	public int getValue(int i) {
+		return (int) (records[i] >>> 16) & 0xFF;
+	}
+	
+	public int getHints(int i) {
+		return (int) (records[i] >>> 32);
+	}
+	
+	public boolean isMain(int i) {
+		return (flagsOf(records[i]) & FLAG_MAIN) != 0;
+	}
+	
+	long getRecord(int i) {
+		return records[i];
+	}
+	
+	
+	
+	static long pack(int index, int value, int hints, int flags) {
+		return (long) hints << 32 | (flags & 0xFF) << 24 | (value & 0xFF) << 16 | index & 0xFFFF;
+	}
+	
+	static int flagsOf(long record) {
+		return (int) (record >>> 24) & 0xFF;
 	}
 }
\ No newline at end of file
@@ -0,0 +1,214 @@
+package dev.ken.red.model.undo;
+
+import dev.ken.red.model.Board;
+import dev.ken.red.model.Cell;
+
+/**
+ * Undo/redo history stored as packed primitive records in a ring buffer, one long per cell snapshot:
+ * <pre>
+ * bits 0 - 15	cell index (row * size + col)
+ * bits 16 - 23	value
+ * bits 24 - 31	flags (first record of a step, main cell)
+ * bits 32 - 63	hint mask
+ * </pre>
+ * The buffer grows until the maximum capacity, then the oldest steps are dropped, so memory stays flat in long sessions.
+ * Undo and redo swap the saved state with the current state of every cell in place through {@link Board#restoreCell(int, int, int, int)},
+ * no step or snapshot is allocated.
+ * 
+ * @author kenguyen
+ *
+ */
+public class UndoLog {
+	private static final int FLAG_START = 1;
+	private static final int FLAG_MAIN = Step.FLAG_MAIN;
+	
+	public static final int DEFAULT_CAPACITY = 256;
+	public static final int DEFAULT_MAX_CAPACITY = 1 << 14;
+	
+	private final int maxCapacity;
+	private long[] records;
+	private int mask;
+	
+	// physical index of the oldest record, records are addressed by their position from it
+	private int head = 0;
+	private int size = 0;
+	
+	// records from cursor to size are undone steps which can be redone
+	private int cursor = 0;
+	
+	// position range of the step which is pushed, undone or redone lately
+	private int stepStart = 0;
+	private int stepEnd = 0;
+	
+	public UndoLog() {
+		this(DEFAULT_CAPACITY, DEFAULT_MAX_CAPACITY);
+	}
+	
+	/**
+	 * Both capacities are numbers of cell snapshots and are rounded up to power of 2
+	 */
+	public UndoLog(int capacity, int maxCapacity) {
+		this.maxCapacity = roundUp(Math.max(capacity, maxCapacity));
+		records = new long[roundUp(capacity)];
+		mask = records.length - 1;
+	}
+	
+	
+	
+	public void push(Step step) {
+		int count = step.size();
+		
+		// a new step always clears redo steps
+		size = cursor;
+		if (count == 0) {
+			return;
+		}
+		if (count > maxCapacity) {
+			clear();
+			return;
+		}
+		
+		ensureCapacity(count);
+		stepStart = size;
+		
+		// same layout as the step, only the start flag is added
+		records[(head + size++) & mask] = step.getRecord(0) | (long) FLAG_START << 24;
+		for (int i = 1; i < count; i++) {
+			records[(head + size++) & mask] = step.getRecord(i);
+		}
+		cursor = size;
+		stepEnd = size;
+	}
+	
+	/**
+	 * Put cells of the last step back to their saved states
+	 * @return false if there is nothing to undo
+	 */
+	public boolean undo(Board board) {
+		if (cursor == 0) {
+			return false;
+		}
+		
+		stepEnd = cursor;
+		stepStart = cursor - 1;
+		while ((Step.flagsOf(records[(head + stepStart) & mask]) & FLAG_START) == 0) {
+			stepStart--;
+		}
+		
+		// latest snapshot first, a cell can be snapped more than once in a step
+		for (int position = stepEnd - 1; position >= stepStart; position--) {
+			swap(board, position);
+		}
+		cursor = stepStart;
+		return true;
+	}
+	
+	/**
+	 * Apply the last undone step again
+	 * @return false if there is nothing to redo
+	 */
+	public boolean redo(Board board) {
+		if (cursor == size) {
+			return false;
+		}
+		
+		stepStart = cursor;
+		stepEnd = cursor + 1;
+		while (stepEnd < size && (Step.flagsOf(records[(head + stepEnd) & mask]) & FLAG_START) == 0) {
+			stepEnd++;
+		}
+		
+		for (int position = stepStart; position < stepEnd; position++) {
+			swap(board, position);
+		}
+		cursor = stepEnd;
+		return true;
+	}
+	
+	public boolean canUndo() {
+		return cursor > 0;
+	}
+	
+	public boolean canRedo() {
+		return cursor < size;
+	}
+	
+	public void clear() {
+		head = 0;
+		size = 0;
+		cursor = 0;
+		stepStart = 0;
+		stepEnd = 0;
+	}
+	
+	/**
+	 * @return
+	 * number of cell snapshots kept in the log
+	 */
+	public int size() {
+		return size;
+	}
+	
+	
+	
+	// cells of the last pushed, undone or redone step, use positions from getStepStart() to getStepEnd() - 1
+	public int getStepStart() {
+		return stepStart;
+	}
+	
+	public int getStepEnd() {
+		return stepEnd;
+	}
+	
+	public int getCellIndex(int position) {
+		return (int) records[(head + position) & mask] & 0xFFFF;
+	}
+	
+	public boolean isMain(int position) {
+		return (Step.flagsOf(records[(head + position) & mask]) & FLAG_MAIN) != 0;
+	}
+	
+	
+	
+	private void swap(Board board, int position) {
+		int slot = (head + position) & mask;
+		long record = records[slot];
+		int index = (int) record & 0xFFFF;
+		Cell cell = board.getCell(index / Board.SIZE, index % Board.SIZE);
+		records[slot] = Step.pack(index, cell.getValue(), cell.getHintMask(), Step.flagsOf(record));
+		board.restoreCell(cell.row, cell.col, (int) (record >>> 16) & 0xFF, (int) (record >>> 32));
+	}
+	
+	private void ensureCapacity(int count) {
+		
+		// grow while it is allowed
+		if (size + count > records.length && records.length < maxCapacity) {
+			int capacity = records.length;
+			while (capacity < size + count && capacity < maxCapacity) {
+				capacity <<= 1;
+			}
+			
+			long[] grown = new long[capacity];
+			for (int position = 0; position < size; position++) {
+				grown[position] = records[(head + position) & mask];
+			}
+			records = grown;
+			mask = capacity - 1;
+			head = 0;
+		}
+		
+		// drop the oldest steps
+		while (size + count > records.length) {
+			do {
+				head = (head + 1) & mask;
+				size--;
+			} while (size > 0 && (Step.flagsOf(records[head]) & FLAG_START) == 0);
+		}
+		cursor = size;
+	}
+	
+	private static int roundUp(int capacity) {
+		int rounded = Integer.highestOneBit(Math.max(capacity, 1));
+		return rounded < capacity ? rounded << 1 : rounded;
+	}
+}
@@ -0,0 +1,260 @@
+package dev.ken.red.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import dev.ken.red.model.Board;
+import dev.ken.red.model.Cell;
+import dev.ken.red.model.CompactBoard;
+import dev.ken.red.model.KsdWriter;
+import dev.ken.red.model.undo.Step;
+import dev.ken.red.model.undo.UndoLog;
+
+/**
+ * Save the game continuously without blocking the caller.
+ * Every step is appended to a journal as the new states of its cells (7 bytes per cell: 2 for index, 1 for value, 4 for hint mask),
+ * and the journal is compacted into a .ksd snapshot from time to time. All file work is done by one background thread.
+ * 
+ * A journal record sets a cell to a state, so replaying it on a snapshot which already has it changes nothing.
+ * That's why a crash at any point is safe: the snapshot is replaced by atomic rename before the journal is cleared,
+ * and a torn record at the end of the journal is ignored. The journal starts with the checksum of its snapshot,
+ * a journal left from another snapshot (crash right after the rename) is never replayed.
+ * 
+ * @author kenguyen
+ *
+ */
+public class AutoSaver implements Closeable {
+	private static final Logger logger = LoggerFactory.getLogger(AutoSaver.class);
+	
+	static final int RECORD_SIZE = 7;
+	static final int HEADER_SIZE = 8;	// checksum of the snapshot
+	private static final int COMPACT_THRESHOLD = 1024;	// records
+	
+	private final File snapshotFile;
+	private final File journalFile;
+	private final ExecutorService executor;
+	
+	// caller thread only
+	private int journalSize = 0;
+	
+	// background thread only
+	private final KsdWriter writer = new KsdWriter();
+	private FileOutputStream journal;
+	
+	public AutoSaver(File snapshotFile, File journalFile) {
+		this.snapshotFile = snapshotFile;
+		this.journalFile = journalFile;
+		executor = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "auto-save");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+	
+	/**
+	 * Append new states of all cells of the step, the board must already be changed by the step
+	 */
+	public void record(Board board, Step step) {
+		byte[] records = new byte[step.size() * RECORD_SIZE];
+		int position = 0;
+		for (int i = 0; i < step.size(); i++) {
+			position = encode(board, step.getCellIndex(i), records, position);
+		}
+		append(board, records);
+	}
+	
+	/**
+	 * Append new states of all cells of the last undone or redone step of the log
+	 */
+	public void record(Board board, UndoLog log) {
+		int start = log.getStepStart();
+		byte[] records = new byte[(log.getStepEnd() - start) * RECORD_SIZE];
+		int position = 0;
+		for (int i = start; i < log.getStepEnd(); i++) {
+			position = encode(board, log.getCellIndex(i), records, position);
+		}
+		append(board, records);
+	}
+	
+	/**
+	 * Replace the snapshot with the current board and clear the journal, call it whenever a new board is started
+	 */
+	public Future<?> compact(Board board) {
+		
+		// copying primitives is cheap, the .ksd is written on the background thread
+		CompactBoard compact = new CompactBoard();
+		int[] groupIds = new int[CompactBoard.CELL_COUNT];
+		compact.copyFrom(board, groupIds);
+		
+		journalSize = 0;
+		return executor.submit(() -> {
+			writeSnapshot(compact, groupIds);
+			return null;
+		});
+	}
+	
+	/**
+	 * Compact and wait until everything is on disk
+	 */
+	public void flush(Board board) throws IOException {
+		try {
+			compact(board).get();
+		}
+		catch (Exception e) {
+			throw new IOException("Unable to save game.", e);
+		}
+	}
+	
+	/**
+	 * Finish all pending writes, records are never dropped
+	 */
+	@Override
+	public void close() throws IOException {
+		executor.shutdown();
+		try {
+			executor.awaitTermination(1, TimeUnit.MINUTES);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (journal != null) {
+			journal.close();
+		}
+	}
+	
+	
+	
+	private int encode(Board board, int index, byte[] records, int position) {
+		Cell cell = board.getCell(index / Board.SIZE, index % Board.SIZE);
+		int hints = cell.getHintMask();
+		records[position++] = (byte) (index >> 8);
+		records[position++] = (byte) index;
+		records[position++] = (byte) cell.getValue();
+		records[position++] = (byte) (hints >> 24);
+		records[position++] = (byte) (hints >> 16);
+		records[position++] = (byte) (hints >> 8);
+		records[position++] = (byte) hints;
+		return position;
+	}
+	
+	private void append(Board board, byte[] records) {
+		executor.execute(() -> append(records));
+		journalSize += records.length / RECORD_SIZE;
+		if (journalSize >= COMPACT_THRESHOLD) {
+			compact(board);
+		}
+	}
+	
+	private void append(byte[] records) {
+		try {
+			if (journal == null) {
+				openJournal();
+			}
+			journal.write(records);
+		}
+		catch (IOException e) {
+			logger.error("Unable to append to the journal.", e);
+		}
+	}
+	
+	/**
+	 * Keep appending to the journal of the current snapshot, any other journal is started over
+	 */
+	private void openJournal() throws IOException {
+		journalFile.getParentFile().mkdirs();
+		long checksum = snapshotFile.isFile() ? checksum(Files.readAllBytes(snapshotFile.toPath())) : 0;
+		if (journalFile.length() >= HEADER_SIZE && readChecksum(journalFile) == checksum) {
+			journal = new FileOutputStream(journalFile, true);
+		}
+		else {
+			startJournal(checksum);
+		}
+	}
+	
+	private void startJournal(long checksum) throws IOException {
+		if (journal != null) {
+			journal.close();
+		}
+		journal = new FileOutputStream(journalFile, false);
+		journal.write(ByteBuffer.allocate(HEADER_SIZE).putLong(checksum).array());
+	}
+	
+	private void writeSnapshot(CompactBoard compact, int[] groupIds) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(2048);
+		writer.write(compact, groupIds, bytes);
+		byte[] data = bytes.toByteArray();
+		
+		snapshotFile.getParentFile().mkdirs();
+		File temp = new File(snapshotFile.getPath() + ".tmp");
+		try (FileOutputStream os = new FileOutputStream(temp)) {
+			os.write(data);
+			os.getFD().sync();
+		}
+		Files.move(temp.toPath(), snapshotFile.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		
+		// the snapshot already has every record of the journal
+		startJournal(checksum(data));
+	}
+	
+	private static long checksum(byte[] snapshot) {
+		CRC32 crc = new CRC32();
+		crc.update(snapshot, 0, snapshot.length);
+		return crc.getValue();
+	}
+	
+	private static long readChecksum(File journalFile) throws IOException {
+		try (DataInputStream is = new DataInputStream(new FileInputStream(journalFile))) {
+			return is.readLong();
+		}
+	}
+	
+	
+	
+	/**
+	 * Load the snapshot and replay the journal on it
+	 */
+	public static Board restore(File snapshotFile, File journalFile) throws IOException {
+		byte[] snapshot = Files.readAllBytes(snapshotFile.toPath());
+		Board board = new Board();
+		board.loadFrom(snapshot, 0, snapshot.length);
+		if (journalFile.isFile() == false) {
+			return board;
+		}
+		
+		byte[] records = Files.readAllBytes(journalFile.toPath());
+		ByteBuffer buffer = ByteBuffer.wrap(records);
+		if (records.length < HEADER_SIZE || buffer.getLong(0) != checksum(snapshot)) {
+			logger.warn("Journal doesn't belong to the snapshot, it is ignored.");
+			return board;
+		}
+		
+		int end = records.length - (records.length - HEADER_SIZE) % RECORD_SIZE;
+		for (int position = HEADER_SIZE; position < end; position += RECORD_SIZE) {
+			int index = buffer.getShort(position);
+			int value = buffer.get(position + 2);
+			int hints = buffer.getInt(position + 3);
+			if (index < 0 || index >= CompactBoard.CELL_COUNT || value < 0 || value > Board.SIZE || hints >>> Board.SIZE != 0) {
+				logger.warn("Journal is corrupted at byte " + position + ", the rest is ignored.");
+				break;
+			}
+			board.restoreCell(index / Board.SIZE, index % Board.SIZE, value, hints);
+		}
+		return board;
+	}
+}
@@ -1,8 +1,10 @@
 package dev.ken.red.util;
 
+import java.util.Arrays;
 import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Set;
-import java.util.Stack;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Please not try to read the code of this class.
@@ -13,65 +15,360 @@ import java.util.Stack;
  *
  */
 public class Combinator {
-	private static final int MIN = 1;
 	private static final int MAX = 9;
 	
-	private final int size;
-	private final int sum;
+	private Combinator() {
+	}
+	
+	/**
+	 * @return
+	 * all combinations of distinct digits 1..9 which have the size and the sum, every combination is sorted ascending.
+	 * The result is built from the precomputed table, so callers are free to modify it.
+	 */
+	public static Set<int[]> calculate(int size, int sum) {
+		Set<int[]> combinations = new LinkedHashSet<int[]>();
+		for (int mask : combinationMasks(size, sum)) {
+			combinations.add(toValues(mask));
+		}
+		return combinations;
+	}
+	
+	
+	
+	//================================================================================================
+	// Combination tables, START
+	// every (size, sum) pair of 9 digits is calculated once when the class is loaded
+	//================================================================================================
+	private static final int[] NO_COMBINATION = new int[0];
+	
+	// entries of boards which don't have 9 digits, keyed by digits, size and sum
+	private static final Map<Long, int[]> LARGE_COMBINATIONS = new ConcurrentHashMap<>();
+	
+	/**
+	 * Lazy holder, the tables are only built when the first combination is requested
+	 */
+	private static class CombinationTable {
+		// indexed by size * (TABLE_SUM + 1) + sum
+		private static final int[][] MASKS = new int[(TABLE_DIGITS + 1) * (TABLE_SUM + 1)][];
+		private static final short[] UNIONS = new short[MASKS.length];
+		
+		// [index][digit - 1], bit i is set if combination i of the entry contains the digit
+		private static final int[][] DIGITS = new int[MASKS.length][TABLE_DIGITS];
+		
+		static {
+			// count first, so every entry is allocated with its exact length
+			int[] counts = new int[MASKS.length];
+			for (int mask = 0; mask <= TABLE_MASK; mask++) {
+				counts[indexOf(Integer.bitCount(mask), sumOf(mask))]++;
+			}
+			for (int i = 0; i < MASKS.length; i++) {
+				MASKS[i] = counts[i] == 0 ? NO_COMBINATION : new int[counts[i]];
+			}
+			
+			Arrays.fill(counts, 0);
+			fill(1, 0, counts);
+			
+			for (int index = 0; index < MASKS.length; index++) {
+				for (int i = 0; i < MASKS[index].length; i++) {
+					for (int bits = MASKS[index][i]; bits != 0; bits &= bits - 1) {
+						DIGITS[index][Integer.numberOfTrailingZeros(bits)] |= 1 << i;
+					}
+				}
+			}
+		}
+		
+		/**
+		 * Depth first from the smallest digit, so combinations of each entry come in lexicographic order
+		 */
+		private static void fill(int digit, int mask, int[] counts) {
+			int index = indexOf(Integer.bitCount(mask), sumOf(mask));
+			MASKS[index][counts[index]++] = mask;
+			UNIONS[index] |= mask;
+			
+			for (int next = digit; next <= TABLE_DIGITS; next++) {
+				fill(next + 1, mask | 1 << (next - 1), counts);
+			}
+		}
+		
+		private static int indexOf(int size, int sum) {
+			return size * (TABLE_SUM + 1) + sum;
+		}
+	}
+	
+	/**
+	 * @return
+	 * all combinations of the size and the sum as masks (digit d is bit d - 1), in the same order as {@link #calculate(int, int)}.
+	 * The array is shared, it must not be modified.
+	 */
+	public static int[] combinationMasks(int size, int sum) {
+		if (size < 0 || size > TABLE_DIGITS || sum < 0 || sum > TABLE_SUM) {
+			return NO_COMBINATION;
+		}
+		return CombinationTable.MASKS[CombinationTable.indexOf(size, sum)];
+	}
 	
-	private Set<int[]> combinations = new LinkedHashSet<int[]>();
-	private Stack<Integer> buffer = new Stack<Integer>();
-	private int total = 0;
+	/**
+	 * @return
+	 * union of all combinations of the size and the sum, 0 if there is none
+	 */
+	public static int unionMask(int size, int sum) {
+		if (size < 0 || size > TABLE_DIGITS || sum < 0 || sum > TABLE_SUM) {
+			return 0;
+		}
+		return CombinationTable.UNIONS[CombinationTable.indexOf(size, sum)];
+	}
+	
+	/**
+	 * Which combinations survive once some digits are known to be in the group and some are known to be absent.
+	 * 
+	 * @return
+	 * bit i is set if combination i of {@link #combinationMasks(int, int)} contains all required digits and no forbidden digit
+	 */
+	public static int filterCombinations(int size, int sum, int requiredMask, int forbiddenMask) {
+		int[] masks = combinationMasks(size, sum);
+		if (masks.length == 0 || (requiredMask & ~TABLE_MASK) != 0) {
+			return 0;
+		}
+		
+		// there are never more than 32 combinations of the same size and sum
+		int[] digits = CombinationTable.DIGITS[CombinationTable.indexOf(size, sum)];
+		int survivors = masks.length == 32 ? -1 : (1 << masks.length) - 1;
+		for (int bits = requiredMask; bits != 0; bits &= bits - 1) {
+			survivors &= digits[Integer.numberOfTrailingZeros(bits)];
+		}
+		for (int bits = forbiddenMask & TABLE_MASK; bits != 0; bits &= bits - 1) {
+			survivors &= ~digits[Integer.numberOfTrailingZeros(bits)];
+		}
+		return survivors;
+	}
 	
-	private Combinator(int size, int sum) {
-		this.size = size;
-		this.sum = sum;
+	/**
+	 * Candidates of the cells which don't have value yet, once required digits are placed in the group
+	 * and forbidden digits are excluded. This is a single lookup in the candidate mask table.
+	 * 
+	 * @return
+	 * union of surviving combinations without the required digits, 0 if nothing survives
+	 */
+	public static int remainingMask(int size, int sum, int requiredMask, int forbiddenMask) {
+		if ((requiredMask & ~TABLE_MASK) != 0) {
+			return 0;
+		}
+		
+		// combinations containing the required digits are the required digits plus
+		// combinations of the rest which avoid required and forbidden digits
+		int rest = size - Integer.bitCount(requiredMask);
+		return candidateMask(TABLE_DIGITS, rest, sum - sumOf(requiredMask), requiredMask | forbiddenMask);
 	}
 	
-	private Set<int[]> calculate() {
-		find(MIN - 1);
+	/**
+	 * Same as {@link #calculate(int, int)} for a board of any number of digits
+	 */
+	public static Set<int[]> calculate(int digits, int size, int sum) {
+		Set<int[]> combinations = new LinkedHashSet<int[]>();
+		for (int mask : combinationMasks(digits, size, sum)) {
+			combinations.add(toValues(mask));
+		}
 		return combinations;
 	}
 	
-	private void find(int current) {
-		if (buffer.size() == size - 1) {
-			buffer.push(sum - total);
-			int[] combination = new int[size];
-			int i = 0;
-			for (int value : buffer) {
-				combination[i++] = value;
+	/**
+	 * Same as {@link #combinationMasks(int, int)} for a board of any number of digits (up to 31).
+	 * Boards with more digits than the table build their entries on first request and keep them.
+	 */
+	public static int[] combinationMasks(int digits, int size, int sum) {
+		if (digits == TABLE_DIGITS) {
+			return combinationMasks(size, sum);
+		}
+		if (size < 0 || size > digits || sum < 0 || sum > digits * (digits + 1) / 2) {
+			return NO_COMBINATION;
+		}
+		
+		long key = (long) digits << 32 | size << 16 | sum;
+		int[] masks = LARGE_COMBINATIONS.get(key);
+		if (masks == null) {
+			masks = digits < TABLE_DIGITS ? filter(combinationMasks(size, sum), (1 << digits) - 1) : generate(digits, size, sum);
+			LARGE_COMBINATIONS.putIfAbsent(key, masks);
+		}
+		return masks;
+	}
+	
+	/**
+	 * Same as {@link #unionMask(int, int)} for a board of any number of digits
+	 */
+	public static int unionMask(int digits, int size, int sum) {
+		return candidateMask(digits, size, sum, 0);
+	}
+	
+	/**
+	 * Same as {@link #remainingMask(int, int, int, int)} for a board of any number of digits
+	 */
+	public static int remainingMask(int digits, int size, int sum, int requiredMask, int forbiddenMask) {
+		if (digits < 32 && requiredMask >>> digits != 0) {
+			return 0;
+		}
+		int rest = size - Integer.bitCount(requiredMask);
+		return candidateMask(digits, rest, sum - sumOf(requiredMask), requiredMask | forbiddenMask);
+	}
+	
+	private static int[] filter(int[] masks, int allowed) {
+		int count = 0;
+		int[] filtered = new int[masks.length];
+		for (int mask : masks) {
+			if ((mask & ~allowed) == 0) {
+				filtered[count++] = mask;
+			}
+		}
+		return count == 0 ? NO_COMBINATION : Arrays.copyOf(filtered, count);
+	}
+	
+	private static int[] generate(int digits, int size, int sum) {
+		MaskList list = new MaskList();
+		collect(1, digits, size, sum, 0, list);
+		return list.count == 0 ? NO_COMBINATION : Arrays.copyOf(list.masks, list.count);
+	}
+	
+	private static class MaskList {
+		private int[] masks = new int[16];
+		private int count = 0;
+		
+		private void add(int mask) {
+			if (count == masks.length) {
+				masks = Arrays.copyOf(masks, count * 2);
+			}
+			masks[count++] = mask;
+		}
+	}
+	
+	/**
+	 * Depth first from the smallest digit, the same order as the table
+	 */
+	private static void collect(int digit, int digits, int size, int sum, int mask, MaskList list) {
+		if (size == 0) {
+			if (sum == 0) {
+				list.add(mask);
 			}
-			combinations.add(combination);
-			buffer.pop();
 			return;
 		}
 		
-		int remain = sum - total;
-		int more = size - buffer.size();
-		int rest = more - 1;
+		for (int next = digit; next <= digits; next++) {
+			// the smallest and the biggest sums when next is the smallest digit of the rest
+			int min = next * size + size * (size - 1) / 2;
+			int max = digits * size - size * (size - 1) / 2;
+			if (min > sum) {
+				break;
+			}
+			if (max >= sum) {
+				collect(next + 1, digits, size - 1, sum - next, mask | 1 << (next - 1), list);
+			}
+		}
+	}
+	
+	/**
+	 * @return
+	 * digits of the mask in ascending order
+	 */
+	public static int[] toValues(int mask) {
+		int[] values = new int[Integer.bitCount(mask)];
+		int i = 0;
+		for (int bits = mask; bits != 0; bits &= bits - 1) {
+			values[i++] = Integer.numberOfTrailingZeros(bits) + 1;
+		}
+		return values;
+	}
+	//================================================================================================
+	// Combination tables, END
+	//================================================================================================
+	
+	
+	
+	//================================================================================================
+	// Candidate masks, START
+	// digit d is represented by bit (d - 1), so 9 digits fit in 9 bits
+	//================================================================================================
+	private static final int TABLE_DIGITS = MAX;
+	private static final int TABLE_SUM = TABLE_DIGITS * (TABLE_DIGITS + 1) / 2;
+	private static final int TABLE_MASK = (1 << TABLE_DIGITS) - 1;
+	
+	/**
+	 * Lazy holder, the table is only built when the first mask is requested
+	 */
+	private static class MaskTable {
+		// [size][sum][used] flattened, each entry is union of all combinations which avoid used digits
+		private static final short[] MASKS = new short[(TABLE_DIGITS + 1) * (TABLE_SUM + 1) << TABLE_DIGITS];
 		
-		// min = remain - max of the rest
-		// max of the rest = (first + last) * (size / 2)
-		// size is the count of the rest
-		int min = remain - MAX * rest + rest * (rest - 1) / 2;
-		if (min <= current) {	// this step makes sure min always > 0
-			min = current + 1;
+		static {
+			// every subset of digits is a combination of its own size and sum
+			// it is a valid combination for every used mask which doesn't overlap it
+			for (int combination = 0; combination <= TABLE_MASK; combination++) {
+				int size = Integer.bitCount(combination);
+				int sum = sumOf(combination);
+				int base = (size * (TABLE_SUM + 1) + sum) << TABLE_DIGITS;
+				int free = ~combination & TABLE_MASK;
+				
+				// iterate all subsets of free digits, including empty set
+				int used = free;
+				while (true) {
+					MASKS[base + used] |= combination;
+					if (used == 0) {
+						break;
+					}
+					used = (used - 1) & free;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Which digits can still appear in a group
+	 * 
+	 * @param digits
+	 * number of digits of the board (9 for 9x9 board)
+	 * @param size
+	 * number of cells which don't have value yet
+	 * @param sum
+	 * remaining sum of those cells
+	 * @param usedMask
+	 * digits already used, they must not appear again
+	 * @return
+	 * union of all combinations of size and sum which don't use any digit in used mask, 0 if there is none
+	 */
+	public static int candidateMask(int digits, int size, int sum, int usedMask) {
+		if (size < 0 || sum < 0) {
+			return 0;
 		}
 		
-		// max = average - offset
-		// average = remain / more
-		// offset = more / 2
-		int max = Math.round((float) (remain * 2 - more * more) / (more * 2));
+		if (digits <= TABLE_DIGITS) {
+			if (size > TABLE_DIGITS || sum > TABLE_SUM) {
+				return 0;
+			}
+			
+			// digits out of the board are treated as used
+			int used = (usedMask | ~((1 << digits) - 1)) & TABLE_MASK;
+			return MaskTable.MASKS[((size * (TABLE_SUM + 1) + sum) << TABLE_DIGITS) + used];
+		}
 		
-		// start branching off
-		for (int next = min; next <= max; next++) {
-			total += buffer.push(next);
-			find(next);
-			total -= buffer.pop();
+		// combinations of the pair are built once and kept, only the ones without used digits are joined
+		int available = ~usedMask & (digits >= 32 ? -1 : (1 << digits) - 1);
+		int union = 0;
+		for (int mask : combinationMasks(digits, size, sum)) {
+			if ((mask & usedMask) == 0) {
+				union |= mask;
+				if (union == available) {
+					break;
+				}
+			}
 		}
+		return union;
 	}
 	
-	public static Set<int[]> calculate(int size, int sum) {
-		return new Combinator(size, sum).calculate();
+	private static int sumOf(int mask) {
+		int sum = 0;
+		for (int bits = mask; bits != 0; bits &= bits - 1) {
+			sum += Integer.numberOfTrailingZeros(bits) + 1;
+		}
+		return sum;
 	}
+	//================================================================================================
+	// Candidate masks, END
+	//================================================================================================
 }
@@ -0,0 +1,24 @@
+package dev.ken.red.util;
+
+/**
+ * One entry of the level manifest, metadata is calculated when the game is packaged.
+ * 
+ * @author kenguyen
+ *
+ */
+public class LevelInfo {
+	public final String path;		// class path resource
+	public final int cageCount;
+	public final int givenCount;	// cells which already have value
+	
+	public LevelInfo(String path, int cageCount, int givenCount) {
+		this.path = path;
+		this.cageCount = cageCount;
+		this.givenCount = givenCount;
+	}
+	
+	@Override
+	public String toString() {
+		return path + LevelManifestWriter.SEPARATOR + cageCount + LevelManifestWriter.SEPARATOR + givenCount;
+	}
+}
@@ -0,0 +1,97 @@
+package dev.ken.red.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import dev.ken.red.model.Cell;
+import dev.ken.red.model.CompactBoard;
+import dev.ken.red.model.KsdParser;
+
+/**
+ * Generate the level manifest at package time, so the game never has to scan the class path for levels.
+ * It is run by Maven after resources are copied and classes are compiled (see pom.xml).
+ * 
+ * Usage: LevelManifestWriter {class output folder}
+ * 
+ * @author kenguyen
+ *
+ */
+public class LevelManifestWriter {
+	private static final Logger logger = LoggerFactory.getLogger(LevelManifestWriter.class);
+	
+	static final String SEPARATOR = "\t";
+	
+	private final KsdParser parser = new KsdParser();
+	private final CompactBoard board = new CompactBoard();
+	private final List<LevelInfo> levels = new ArrayList<>();
+	
+	private void addAll(File file, String path) throws IOException {
+		if (file.isDirectory()) {
+			File[] children = file.listFiles();
+			Arrays.sort(children);
+			for (File child : children) {
+				addAll(child, path + "/" + child.getName());
+			}
+		}
+		else if (file.getName().endsWith(LevelUtils.FILE_EXT)) {
+			byte[] data = Files.readAllBytes(file.toPath());
+			parser.parse(data, 0, data.length, board);
+			
+			int givenCount = 0;
+			for (int index = 0; index < CompactBoard.CELL_COUNT; index++) {
+				if (board.getValue(index) != Cell.EMPTY_VALUE) {
+					givenCount++;
+				}
+			}
+			levels.add(new LevelInfo(path, board.getCageCount(), givenCount));
+		}
+	}
+	
+	/**
+	 * @return
+	 * levels found under the level folder of the root, ordered by path. Nothing is written
+	 */
+	public static List<LevelInfo> scan(File root) throws IOException {
+		LevelManifestWriter writer = new LevelManifestWriter();
+		File folder = new File(root, LevelUtils.LEVEL_FOLDER);
+		if (folder.isDirectory()) {
+			writer.addAll(folder, LevelUtils.LEVEL_FOLDER);
+		}
+		return writer.levels;
+	}
+	
+	/**
+	 * @return
+	 * levels found under the level folder of the root
+	 */
+	public static List<LevelInfo> write(File root) throws IOException {
+		List<LevelInfo> levels = scan(root);
+		// read back as UTF-8 by LevelUtils, whatever the default charset of the build host is
+		try (Writer out = Files.newBufferedWriter(new File(root, LevelUtils.MANIFEST).toPath(), StandardCharsets.UTF_8)) {
+			out.write("# path" + SEPARATOR + "cages" + SEPARATOR + "givens\n");
+			for (LevelInfo level : levels) {
+				out.write(level + "\n");
+			}
+		}
+		return levels;
+	}
+	
+	public static void main(String[] args) throws IOException {
+		if (args.length != 1) {
+			System.err.println("Usage: LevelManifestWriter {class output folder}");
+			return;
+		}
+		
+		List<LevelInfo> levels = write(new File(args[0]));
+		logger.info("Level manifest lists " + levels.size() + " levels");
+	}
+}
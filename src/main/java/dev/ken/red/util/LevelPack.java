@@ -0,0 +1,132 @@
+package dev.ken.red.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import dev.ken.red.model.Board;
+import dev.ken.red.model.CompactBoard;
+
+/**
+ * Read only view of a binary level pack, puzzle N is read in O(1) without touching the other puzzles.
+ * Only absolute gets are used, so a pack can be shared between threads.
+ * 
+ * Format (big endian):
+ * <pre>
+ * header	int magic "KSDP", short version, byte board size, byte reserved, int puzzle count, int reserved
+ * index	puzzle count + 1 ints, offset of every puzzle from the start of the pack, the last one is the end of the pack
+ * puzzle	byte difficulty (0 is unknown), cage count, {cage count} cage sums,
+ * 			{CELL_COUNT} cage ids (-1 is no cage), given count, {given count} pairs of (cell index, value)
+ * </pre>
+ * Numbers of a puzzle are bytes, or shorts for boards larger than 11x11.
+ * 
+ * @author kenguyen
+ *
+ */
+public class LevelPack {
+	public static final String FILE_EXT = ".ksdp";
+	
+	static final int MAGIC = 0x4B534450;	// KSDP
+	static final short VERSION = 1;
+	static final int HEADER_SIZE = 16;
+	
+	// every number of a puzzle is a byte, or a short when the board has more than 127 cells
+	static final int NUMBER_SIZE = CompactBoard.CELL_COUNT > Byte.MAX_VALUE ? 2 : 1;
+	
+	private final ByteBuffer data;
+	private final int count;
+	
+	public LevelPack(ByteBuffer data) throws IOException {
+		this.data = data;
+		if (data.limit() < HEADER_SIZE || data.getInt(0) != MAGIC) {
+			throw new IOException("Data is not a level pack.");
+		}
+		if (data.getShort(4) != VERSION) {
+			throw new IOException("Level pack version [" + data.getShort(4) + "] is not supported.");
+		}
+		if (data.get(6) != CompactBoard.SIZE) {
+			throw new IOException("Level pack board size [" + data.get(6) + "] is not supported.");
+		}
+		
+		count = data.getInt(8);
+		if (count < 0 || HEADER_SIZE + (count + 1) * 4L > data.limit() || offsetOf(count) != data.limit()) {
+			throw new IOException("Level pack is truncated.");
+		}
+	}
+	
+	/**
+	 * Memory map the whole file, the mapping stays valid after the channel is closed
+	 */
+	public static LevelPack open(File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			return new LevelPack(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+	
+	
+	
+	public int size() {
+		return count;
+	}
+	
+	public int getDifficulty(int puzzle) {
+		return data.get(offsetOf(checkIndex(puzzle)));
+	}
+	
+	/**
+	 * Overwrite the compact board with a puzzle of the pack
+	 */
+	public void read(int puzzle, CompactBoard board) {
+		int position = offsetOf(checkIndex(puzzle)) + 1;
+		board.clear();
+		
+		int cageCount = numberAt(position);
+		position += NUMBER_SIZE;
+		for (int cage = 0; cage < cageCount; cage++, position += NUMBER_SIZE) {
+			board.addCage(numberAt(position));
+		}
+		
+		for (int index = 0; index < CompactBoard.CELL_COUNT; index++, position += NUMBER_SIZE) {
+			int cage = numberAt(position);
+			if (cage != CompactBoard.NO_CAGE) {
+				board.setCage(index, cage);
+			}
+		}
+		
+		int givenCount = numberAt(position);
+		position += NUMBER_SIZE;
+		for (int i = 0; i < givenCount; i++, position += NUMBER_SIZE * 2) {
+			board.setValue(numberAt(position), numberAt(position + NUMBER_SIZE));
+		}
+	}
+	
+	/**
+	 * @return
+	 * a new board of the puzzle, group ids are cage ids + 1
+	 */
+	public Board load(int puzzle) {
+		CompactBoard board = new CompactBoard();
+		read(puzzle, board);
+		return board.toBoard();
+	}
+	
+	private int numberAt(int position) {
+		return NUMBER_SIZE == 1 ? data.get(position) : data.getShort(position);
+	}
+	
+	private int checkIndex(int puzzle) {
+		if (puzzle < 0 || puzzle >= count) {
+			throw new IndexOutOfBoundsException("Puzzle [" + puzzle + "] is not in the pack.");
+		}
+		return puzzle;
+	}
+	
+	/**
+	 * @param puzzle 0 to count, offset of count is the end of the pack
+	 */
+	private int offsetOf(int puzzle) {
+		return data.getInt(HEADER_SIZE + puzzle * 4);
+	}
+}
@@ -0,0 +1,146 @@
+package dev.ken.red.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import dev.ken.red.model.Cell;
+import dev.ken.red.model.CompactBoard;
+import dev.ken.red.model.KsdParser;
+
+/**
+ * Build a binary level pack (see {@link LevelPack} for the format) from compact boards or .ksd files.
+ * 
+ * Usage: LevelPackWriter {output file} {.ksd files or folders}...
+ * 
+ * @author kenguyen
+ *
+ */
+public class LevelPackWriter {
+	private static final Logger logger = LoggerFactory.getLogger(LevelPackWriter.class);
+	
+	private final ByteArrayOutputStream records = new ByteArrayOutputStream();
+	private int[] offsets = new int[64];
+	private int count = 0;
+	
+	// reused for every converted file
+	private final KsdParser parser = new KsdParser();
+	private final CompactBoard board = new CompactBoard();
+	
+	/**
+	 * Append a puzzle, only cages and values (givens) are saved
+	 * @param difficulty 0 to 127, 0 is unknown
+	 */
+	public void add(CompactBoard board, int difficulty) {
+		if (difficulty < 0 || difficulty > Byte.MAX_VALUE) {
+			throw new RuntimeException("Difficulty [" + difficulty + "] is invalid.");
+		}
+		
+		if (count == offsets.length) {
+			offsets = Arrays.copyOf(offsets, count * 2);
+		}
+		offsets[count++] = records.size();
+		
+		records.write(difficulty);
+		writeNumber(board.getCageCount());
+		for (int cage = 0; cage < board.getCageCount(); cage++) {
+			writeNumber(board.getCageSum(cage));
+		}
+		
+		int givenCount = 0;
+		for (int index = 0; index < CompactBoard.CELL_COUNT; index++) {
+			writeNumber(board.getCageId(index));
+			if (board.getValue(index) != Cell.EMPTY_VALUE) {
+				givenCount++;
+			}
+		}
+		
+		writeNumber(givenCount);
+		for (int index = 0; index < CompactBoard.CELL_COUNT; index++) {
+			if (board.getValue(index) != Cell.EMPTY_VALUE) {
+				writeNumber(index);
+				writeNumber(board.getValue(index));
+			}
+		}
+	}
+	
+	public void add(File ksdFile, int difficulty) throws IOException {
+		byte[] data = Files.readAllBytes(ksdFile.toPath());
+		parser.parse(data, 0, data.length, board);
+		add(board, difficulty);
+	}
+	
+	public int size() {
+		return count;
+	}
+	
+	public void writeTo(OutputStream os) throws IOException {
+		int indexSize = (count + 1) * 4;
+		ByteBuffer head = ByteBuffer.allocate(LevelPack.HEADER_SIZE + indexSize);
+		head.putInt(LevelPack.MAGIC);
+		head.putShort(LevelPack.VERSION);
+		head.put((byte) CompactBoard.SIZE);
+		head.put((byte) 0);
+		head.putInt(count);
+		head.putInt(0);
+		
+		int base = head.capacity();
+		for (int puzzle = 0; puzzle < count; puzzle++) {
+			head.putInt(base + offsets[puzzle]);
+		}
+		head.putInt(base + records.size());
+		
+		os.write(head.array());
+		records.writeTo(os);
+	}
+	
+	public void writeTo(File file) throws IOException {
+		try (OutputStream os = new FileOutputStream(file)) {
+			writeTo(os);
+		}
+	}
+	
+	
+	
+	private void writeNumber(int number) {
+		if (LevelPack.NUMBER_SIZE == 2) {
+			records.write(number >> 8);
+		}
+		records.write(number);
+	}
+	
+	private void addAll(File file) throws IOException {
+		if (file.isDirectory()) {
+			File[] children = file.listFiles();
+			Arrays.sort(children);
+			for (File child : children) {
+				addAll(child);
+			}
+		}
+		else if (file.getName().endsWith(LevelUtils.FILE_EXT)) {
+			add(file, 0);
+		}
+	}
+	
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.err.println("Usage: LevelPackWriter {output file} {.ksd files or folders}...");
+			return;
+		}
+		
+		LevelPackWriter writer = new LevelPackWriter();
+		for (int i = 1; i < args.length; i++) {
+			writer.addAll(new File(args[i]));
+		}
+		writer.writeTo(new File(args[0]));
+		logger.info("Packed " + writer.size() + " levels into " + args[0]);
+	}
+}
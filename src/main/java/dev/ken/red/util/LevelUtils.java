@@ -1,15 +1,20 @@
 package dev.ken.red.util;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
-import java.util.regex.Pattern;
 
-import org.reflections.Configuration;
-import org.reflections.Reflections;
-import org.reflections.scanners.ResourcesScanner;
-import org.reflections.util.ClasspathHelper;
-import org.reflections.util.ConfigurationBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import dev.ken.red.model.Board;
 
@@ -19,35 +24,88 @@ import dev.ken.red.model.Board;
  *
  */
 public class LevelUtils {
+	private static final Logger logger = LoggerFactory.getLogger(LevelUtils.class);
+	
 	public static final String FILE_EXT = ".ksd";
+	public static final String LEVEL_FOLDER = "levels";
+	public static final String MANIFEST = LEVEL_FOLDER + "/levels.manifest";
 	
 	private static final String SAVE_PATH = "./save/last" + FILE_EXT;
+	private static final String JOURNAL_PATH = "./save/last.ksj";
+	
+	/**
+	 * Read levels from the manifest generated at package time ({@link LevelManifestWriter}), ordered by path.
+	 * Builds which don't run Maven (IDE, plain javac) have no manifest, the level folder is scanned instead.
+	 */
+	public static List<LevelInfo> listLevelInfos() {
+		InputStream stream = LevelUtils.class.getClassLoader().getResourceAsStream(MANIFEST);
+		if (stream == null) {
+			return scanLevelFolder();
+		}
+		
+		List<LevelInfo> levels = new ArrayList<>();
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+			for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+				if (line.isEmpty() || line.startsWith("#")) {
+					continue;
+				}
+				String[] parts = line.split(LevelManifestWriter.SEPARATOR);
+				levels.add(new LevelInfo(parts[0], Integer.parseInt(parts[1]), Integer.parseInt(parts[2])));
+			}
+		}
+		catch (IOException | RuntimeException e) {
+			logger.error("Unable to read level manifest.", e);
+		}
+		return levels;
+	}
+	
+	/**
+	 * Same levels as the manifest, only possible when the level folder is a folder of the file system
+	 */
+	private static List<LevelInfo> scanLevelFolder() {
+		URL url = LevelUtils.class.getClassLoader().getResource(LEVEL_FOLDER);
+		if (url == null || "file".equals(url.getProtocol()) == false) {
+			logger.warn("Level manifest is not found.");
+			return new ArrayList<>();
+		}
+		
+		logger.warn("Level manifest is not found, scanning level folder " + url);
+		try {
+			return LevelManifestWriter.scan(new File(url.toURI()).getParentFile());
+		}
+		catch (IOException | URISyntaxException | RuntimeException e) {
+			logger.error("Unable to scan level folder.", e);
+			return new ArrayList<>();
+		}
+	}
 	
+	/**
+	 * @return
+	 * class path resources of all levels, ordered by path
+	 */
 	public static Set<String> listAllLevels() {
-		Configuration configuration = new ConfigurationBuilder()
-			.setUrls(ClasspathHelper.forPackage("dev.ken.red"))
-			.setScanners(new ResourcesScanner());
-		Reflections reflections = new Reflections(configuration);
-		Set<String> levels = reflections.getResources(Pattern.compile(".*\\.ksd"));
+		Set<String> levels = new LinkedHashSet<>();
+		for (LevelInfo level : listLevelInfos()) {
+			levels.add(level.path);
+		}
 		return levels;
 	}
 	
+	public static AutoSaver createAutoSaver() {
+		return new AutoSaver(new File(SAVE_PATH), new File(JOURNAL_PATH));
+	}
+	
 	public static void saveCurrentGame(Board board) throws IOException {
-		File saveFile = new File(SAVE_PATH);
-		saveFile.getParentFile().mkdirs();
-		saveFile.createNewFile();
-		board.saveTo(saveFile);
+		try (AutoSaver saver = createAutoSaver()) {
+			saver.flush(board);
+		}
 	}
 	
 	public static Board resumeSavedGame() throws IOException {
-		Board board = new Board();
 		File saveFile = new File(SAVE_PATH);
-		if (saveFile.isFile()) {
-			board.loadFrom(saveFile);
-		}
-		else {
+		if (saveFile.isFile() == false) {
 			throw new IOException("Unable to find saved game.");
 		}
-		return board;
+		return AutoSaver.restore(saveFile, new File(JOURNAL_PATH));
 	}
 }
@@ -1,5 +1,6 @@
 package dev.ken.red.view;
 
+import dev.ken.red.model.Block;
 import dev.ken.red.model.Board;
 import dev.ken.red.model.Group;
 import javafx.geometry.Insets;
@@ -26,7 +27,7 @@ public class CellView extends StackPane {
 	private static final int OFFSET = 4;
 	
 	private static final Font VALUE_FONT = Font.font("Consolas", 36);
-	private static final Font HINT_FONT = Font.font("Consolas", 14);
+	private static final Font HINT_FONT = Font.font("Consolas", 42 / Block.SIZE);	// hints are laid out in a block shaped grid
 	private static final Font SUM_FONT = Font.font("Consolas", FontWeight.BOLD, FontPosture.ITALIC, 15);
 	
 	private static final Color CL_GROUP = Color.rgb(0, 150, 220);
@@ -67,12 +68,12 @@ public class CellView extends StackPane {
 		
 		GridPane hintGrid = new GridPane();
 		hintGrid.setPadding(new Insets(OFFSET * 2));
-		hintGrid.setHgap(6);
+		hintGrid.setHgap(18 / Block.SIZE);
 		hintGrid.setVgap(-OFFSET);
 		hintGrid.setAlignment(Pos.CENTER);
 		hintGrid.setMinSize(SIZE, SIZE);
 		hintGrid.setMaxSize(SIZE, SIZE);
-		hints = new Label[3][3];
+		hints = new Label[Block.SIZE][Block.SIZE];
 		Background transparent = BackgroundFactory.create(Color.rgb(0, 0, 0, 0));
 		for (int i = 0; i < Board.SIZE; i++) {
 			Label hint = new Label();
@@ -81,8 +82,8 @@ public class CellView extends StackPane {
 			hint.setBackground(transparent);
 			hint.setText(String.valueOf(i + 1));
 			hint.setVisible(false);
-			int hintRow = 2 - i / 3;
-			int hintCol = i % 3;
+			int hintRow = Block.SIZE - 1 - i / Block.SIZE;
+			int hintCol = i % Block.SIZE;
 			hintGrid.add(hint, hintCol, hintRow);
 			hints[hintRow][hintCol] = hint;
 		}
@@ -237,9 +238,9 @@ public class CellView extends StackPane {
 		// 7 8 9				1 2 3
 		// 4 5 6	instead of 	4 5 6
 		// 1 2 3				7 8 9
-		// to switch to the style on the right side, remove the part '2 -' of hintRow
-		int hintRow = 2 - (value - 1) / 3;
-		int hintCol = (value - 1) % 3;
+		// to switch to the style on the right side, remove the part 'Block.SIZE - 1 -' of hintRow
+		int hintRow = Block.SIZE - 1 - (value - 1) / Block.SIZE;
+		int hintCol = (value - 1) % Block.SIZE;
 		return hints[hintRow][hintCol];
 	}
 	
@@ -0,0 +1,521 @@
+package dev.ken.red.dlx;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import dev.ken.red.model.Board;
+import dev.ken.red.model.Cell;
+import dev.ken.red.model.CompactBoard;
+import dev.ken.red.model.Group;
+
+/**
+ * 
+ * @author kenguyen
+ *
+ */
+public class SolverTest {
+	
+	private Group createGroup(int id, int sum, int[][] coords) {
+		Group group = new Group(id);
+		for (int[] coord : coords) {
+			group.addCell(new Cell(coord[0], coord[1]));
+		}
+		group.setSum(sum);
+		return group;
+	}
+	
+	private Board createBoard(int sum, int[][] coords) {
+		Board board = new Board();
+		board.addGroup(createGroup(9, sum, coords));
+		return board;
+	}
+	
+	private Board loadBoard(String name) throws IOException {
+		Board board = new Board();
+		board.loadFrom(this.getClass().getResourceAsStream(name));
+		return board;
+	}
+	
+	/**
+	 * Reference search running on the linked engine, same algorithm as the solver used to be
+	 */
+	private void find(DLX dlx, Head head, int size, Set<String> solutions) {
+		Node candidate = head.first;
+		do {
+			Boolean result = dlx.cover(candidate);
+			if (result == null) {
+				candidate = candidate.D;
+				continue;
+			}
+			
+			if (result == true) {
+				Head smallest = dlx.findSmallestHead();
+				if (smallest == dlx.main) {
+					solutions.add(Arrays.deepToString(Converter.toGrid(dlx.getSteps(), size)));
+					dlx.uncover();
+					return;
+				}
+				find(dlx, smallest, size, solutions);
+			}
+			
+			dlx.uncover();
+			candidate = candidate.D;
+		} while (candidate != head.first);
+	}
+	
+	private void assertSameSolutions(int blockCount, int blockSize, Board board) {
+		final int size = blockCount * blockSize;
+		
+		DLX dlx = new DLX(blockCount, blockSize);
+		dlx.applyBoardConstraints(board);
+		Set<String> expected = new HashSet<>();
+		find(dlx, dlx.main.next, size, expected);
+		
+		// the order of solutions may differ, the solutions themselves must not
+		List<Collection<Node>> solutions = Solver.solve(blockCount, blockSize, board);
+		assertEquals("Engines found different number of solutions.", expected.size(), solutions.size());
+		for (Collection<Node> solution : solutions) {
+			String grid = Arrays.deepToString(Converter.toGrid(solution, size));
+			assertTrue("Engines found different solutions.", expected.contains(grid));
+		}
+	}
+	
+	@Test
+	public void testSameSolutions() throws IOException {
+		// plain 4x4 sudoku has 288 solutions
+		assertEquals(288, Solver.solve(2, 2, new Board()).size());
+		
+		assertSameSolutions(2, 2, new Board());
+		assertSameSolutions(2, 2, createBoard(6, new int[][] {{0,1},{0,2},{1,2}}));
+		assertSameSolutions(2, 2, createBoard(3, new int[][] {{0,0},{1,0}}));
+		
+		// groups with more than one combination, values of the unused combination run out of rows
+		assertSameSolutions(2, 2, createBoard(5, new int[][] {{0,0},{1,0}}));
+		assertEquals(96, Solver.solve(2, 2, createBoard(5, new int[][] {{0,0},{1,0}})).size());
+		
+		// combinations with digits larger than the board (1 + 6 and 2 + 5) are ignored, only 3 + 4 is left
+		for (Collection<Node> solution : Solver.solve(2, 2, createBoard(7, new int[][] {{0,0},{0,1}}))) {
+			int[][] grid = Converter.toGrid(solution, 4);
+			assertEquals(7, grid[0][0] + grid[0][1]);
+		}
+		assertEquals(48, Solver.solve(2, 2, createBoard(7, new int[][] {{0,0},{0,1}})).size());
+		assertSameSolutions(3, 3, loadBoard("/finish.ksd"));
+	}
+	
+	private void assertSameSolutions(int blockCount, int blockSize, List<Collection<Node>> expected, List<Collection<Node>> actual) {
+		final int size = blockCount * blockSize;
+		Set<String> grids = new HashSet<>();
+		for (Collection<Node> solution : expected) {
+			grids.add(Arrays.deepToString(Converter.toGrid(solution, size)));
+		}
+		
+		assertEquals("Engines found different number of solutions.", expected.size(), actual.size());
+		for (Collection<Node> solution : actual) {
+			String grid = Arrays.deepToString(Converter.toGrid(solution, size));
+			assertTrue("Engines found different solutions.", grids.contains(grid));
+		}
+	}
+	
+	@Test
+	public void testMaskSolver() throws IOException {
+		Board[] boards = {
+			new Board(),
+			createBoard(6, new int[][] {{0,1},{0,2},{1,2}}),
+			createBoard(3, new int[][] {{0,0},{1,0}}),
+			createBoard(7, new int[][] {{0,0},{0,1},{1,1}}),
+		};
+		for (Board board : boards) {
+			assertSameSolutions(2, 2, Solver.solve(2, 2, board), MaskSolver.solve(2, 2, board));
+		}
+		
+		Board board = loadBoard("/finish.ksd");
+		assertSameSolutions(3, 3, Solver.solve(3, 3, board), MaskSolver.solve(3, 3, board));
+		
+		// a real level without any given value has exactly one solution
+		List<Collection<Node>> solutions = MaskSolver.solve(3, 3, loadBoard("/levels/000.ksd"));
+		assertEquals(1, solutions.size());
+		assertEquals(Board.SIZE * Board.SIZE, solutions.get(0).size());
+	}
+	
+	@Test
+	public void testPropagation() throws IOException {
+		// a group which has more than one combination (1 + 4 and 2 + 3)
+		Board board = createBoard(5, new int[][] {{0,0},{1,0}});
+		assertSameSolutions(2, 2, MaskSolver.solve(2, 2, board), Solver.solve(2, 2, board));
+		
+		board.addGroup(createGroup(10, 8, new int[][] {{2,2},{2,3},{3,3}}));
+		board.addGroup(createGroup(11, 5, new int[][] {{3,1},{3,2}}));
+		
+		ArrayDLX plain = ArrayDLX.create(2, 2);
+		plain.setPropagating(false);
+		plain.applyBoardConstraints(board);
+		List<Collection<Node>> expected = new Solver(plain).run();
+		
+		ArrayDLX dlx = ArrayDLX.create(2, 2);
+		dlx.applyBoardConstraints(board);
+		assertSameSolutions(2, 2, expected, new Solver(dlx).run());
+		assertTrue("Propagation doesn't reduce node count.", dlx.nodeCount < plain.nodeCount);
+		
+		// real level without any given value
+		board = loadBoard("/levels/000.ksd");
+		assertSameSolutions(3, 3, MaskSolver.solve(3, 3, board), Solver.solve(3, 3, board));
+	}
+	
+	@Test
+	public void testCountSolutions() throws IOException {
+		assertEquals(288, Solver.countSolutions(2, 2, new Board(), Integer.MAX_VALUE));
+		assertEquals(2, Solver.countSolutions(2, 2, new Board(), 2));
+		assertEquals(0, Solver.countSolutions(2, 2, new Board(), 0));
+		
+		Board board = createBoard(5, new int[][] {{0,0},{1,0}});
+		assertEquals(Solver.solve(2, 2, board).size(), Solver.countSolutions(2, 2, board, Integer.MAX_VALUE));
+		
+		// levels must have exactly one solution
+		assertEquals(1, Solver.countSolutions(loadBoard("/finish.ksd"), 2));
+		assertEquals(1, Solver.countSolutions(loadBoard("/levels/000.ksd"), 2));
+		
+		// compact boards give the same result
+		board = loadBoard("/levels/000.ksd");
+		assertEquals(1, Solver.countSolutions(CompactBoard.from(board), 2));
+		assertArrayEquals(Solver.iterate(3, 3, board).next(), Solver.iterate(CompactBoard.from(board)).next());
+	}
+	
+	private void assertPoolIdle() {
+		ForkJoinPool pool = ForkJoinPool.commonPool();
+		assertEquals("Tasks are left in the pool.", 0, pool.getQueuedTaskCount() + pool.getQueuedSubmissionCount());
+		assertTrue("Pool is still busy.", pool.awaitQuiescence(1, TimeUnit.SECONDS));
+	}
+	
+	@Test
+	public void testParallel() throws IOException {
+		// boards with many solutions
+		Board[] boards = {
+			new Board(),
+			createBoard(5, new int[][] {{0,0},{1,0}}),
+			createBoard(6, new int[][] {{0,1},{0,2},{1,2}}),
+		};
+		for (Board board : boards) {
+			List<Collection<Node>> expected = Solver.solve(2, 2, board);
+			assertSameSolutions(2, 2, expected, Solver.solveParallel(2, 2, board, Integer.MAX_VALUE));
+			assertEquals(expected.size(), Solver.countSolutionsParallel(2, 2, board, Integer.MAX_VALUE));
+			assertPoolIdle();
+		}
+		
+		// bundled level has one solution
+		Board board = loadBoard("/levels/000.ksd");
+		assertSameSolutions(3, 3, Solver.solve(3, 3, board), Solver.solveParallel(3, 3, board, Integer.MAX_VALUE));
+		assertEquals(1, Solver.countSolutionsParallel(3, 3, board, 2));
+		assertPoolIdle();
+		
+		// the search stops at the limit, every solution found is a real one
+		Set<String> grids = new HashSet<>();
+		for (Collection<Node> solution : Solver.solve(2, 2, new Board())) {
+			grids.add(Arrays.deepToString(Converter.toGrid(solution, 4)));
+		}
+		for (int limit : new int[] {0, 1, 7, 100, 288}) {
+			List<Collection<Node>> solutions = Solver.solveParallel(2, 2, new Board(), limit);
+			assertEquals(limit, solutions.size());
+			for (Collection<Node> solution : solutions) {
+				assertTrue("Parallel solver found a wrong solution.", grids.contains(Arrays.deepToString(Converter.toGrid(solution, 4))));
+			}
+			assertEquals(limit, Solver.countSolutionsParallel(2, 2, new Board(), limit));
+			assertPoolIdle();
+		}
+		assertEquals(288, Solver.solveParallel(2, 2, new Board(), 1000).size());
+	}
+	
+	@Test(expected = RuntimeException.class)
+	public void testTooLarge() {
+		// 32 values don't fit in the int masks of the engine
+		ArrayDLX.create(4, 8);
+	}
+	
+	@Test
+	public void testTemplate() {
+		final int size = 4;
+		final int skeletonSize = 1 + size * size * ArrayDLX.CON_COUNT + size * size * size * ArrayDLX.CON_COUNT;
+		ArrayDLX fresh = new ArrayDLX(2, 2);
+		
+		// dirty an engine copied from the template, the template itself must not be touched
+		ArrayDLX dlx = ArrayDLX.create(2, 2);
+		dlx.applyBoardConstraints(createBoard(6, new int[][] {{0,1},{0,2},{1,2}}));
+		dlx.cover(dlx.D[dlx.findSmallestHead()]);
+		ArrayDLX other = ArrayDLX.create(2, 2);
+		assertArrayEquals(Arrays.copyOf(fresh.D, skeletonSize), Arrays.copyOf(other.D, skeletonSize));
+		assertArrayEquals(Arrays.copyOf(fresh.S, skeletonSize), Arrays.copyOf(other.S, skeletonSize));
+		
+		// reset brings back the empty matrix
+		dlx.reset();
+		assertArrayEquals(Arrays.copyOf(fresh.U, skeletonSize), Arrays.copyOf(dlx.U, skeletonSize));
+		assertArrayEquals(Arrays.copyOf(fresh.D, skeletonSize), Arrays.copyOf(dlx.D, skeletonSize));
+		assertArrayEquals(Arrays.copyOf(fresh.L, skeletonSize), Arrays.copyOf(dlx.L, skeletonSize));
+		assertArrayEquals(Arrays.copyOf(fresh.R, skeletonSize), Arrays.copyOf(dlx.R, skeletonSize));
+		assertArrayEquals(Arrays.copyOf(fresh.S, skeletonSize), Arrays.copyOf(dlx.S, skeletonSize));
+	}
+	
+	private int scanSmallestHead(ArrayDLX dlx) {
+		int smallest = dlx.R[ArrayDLX.ROOT];
+		for (int next = smallest; next != ArrayDLX.ROOT; next = dlx.R[next]) {
+			if (dlx.S[next] < dlx.S[smallest]) {
+				smallest = next;
+			}
+		}
+		return smallest;
+	}
+	
+	@Test
+	public void testSmallestHead() throws IOException {
+		// buckets must always agree with a scan of the head list, while covering forward and backtracking
+		Random random = new Random(9);
+		ArrayDLX dlx = ArrayDLX.create(3, 3);
+		dlx.applyBoardConstraints(loadBoard("/levels/000.ksd"));
+		for (int i = 0; i < 2000; i++) {
+			int head = dlx.findSmallestHead();
+			assertEquals("Bucket doesn't hold the smallest head.", scanSmallestHead(dlx), head);
+			
+			if (head == ArrayDLX.ROOT || dlx.S[head] == 0 || random.nextInt(4) == 0) {
+				if (dlx.getDepth() > 0) {
+					dlx.uncover();
+				}
+				continue;
+			}
+			
+			int candidate = dlx.D[head];
+			for (int skip = random.nextInt(dlx.S[head]); skip > 0; skip--) {
+				candidate = dlx.D[candidate];
+			}
+			dlx.cover(candidate);
+		}
+		assertEquals(scanSmallestHead(dlx), dlx.copy().findSmallestHead());
+		
+		dlx.reset();
+		assertEquals(1, dlx.findSmallestHead());
+	}
+	
+	@Test
+	public void testRandomizer() {
+		final int size = 4;
+		Board board = createBoard(3, new int[][] {{0,0},{0,1}});
+		for (int i = 0; i < 20; i++) {
+			int[][] grid = Converter.toGrid(Randomizer.generate(2, 2, board), size);
+			assertEquals("Randomizer doesn't respect group sum.", 3, grid[0][0] + grid[0][1]);
+			for (int row = 0; row < size; row++) {
+				for (int col = 0; col < size; col++) {
+					for (int other = col + 1; other < size; other++) {
+						assertEquals("Duplicated value in a row.", false, grid[row][col] == grid[row][other]);
+						assertEquals("Duplicated value in a column.", false, grid[col][row] == grid[other][row]);
+					}
+				}
+			}
+		}
+	}
+	
+	@Test
+	public void testLargeRandomizer() {
+		// 16x16 board is filled without recursion
+		final int size = 16;
+		int[][] grid = Converter.toGrid(Randomizer.generate(4, 4, new Board()), size);
+		for (int row = 0; row < size; row++) {
+			int rowMask = 0;
+			int colMask = 0;
+			for (int col = 0; col < size; col++) {
+				rowMask |= 1 << (grid[row][col] - 1);
+				colMask |= 1 << (grid[col][row] - 1);
+			}
+			assertEquals("Row doesn't have all values.", (1 << size) - 1, rowMask);
+			assertEquals("Column doesn't have all values.", (1 << size) - 1, colMask);
+		}
+	}
+	
+	@Test
+	public void testBoundedSolve() throws IOException {
+		SolveResult result = Solver.solve(2, 2, new Board(), SolveOptions.create());
+		assertEquals(SolveResult.Status.COMPLETED, result.getStatus());
+		assertEquals(288, result.getSolutions().size());
+		
+		result = Solver.solve(2, 2, new Board(), SolveOptions.create().limit(3));
+		assertEquals(SolveResult.Status.LIMIT_REACHED, result.getStatus());
+		assertEquals(3, result.getSolutionCount());
+		
+		// empty 9x9 board has too many solutions to finish
+		result = Solver.solve(3, 3, new Board(), SolveOptions.create().nodeBudget(5000));
+		assertEquals(SolveResult.Status.OUT_OF_BUDGET, result.getStatus());
+		assertEquals(5000, result.getNodeCount());
+		assertTrue("Partial result doesn't keep found solutions.", result.getSolutions().size() > 0);
+		
+		result = Solver.solve(3, 3, new Board(), SolveOptions.create().timeout(50));
+		assertEquals(SolveResult.Status.TIMEOUT, result.getStatus());
+		
+		CancelToken cancel = new CancelToken();
+		long[] progress = new long[1];
+		result = Solver.solve(3, 3, new Board(), SolveOptions.create().token(cancel).listener((nodeCount, depth, solutionCount) -> {
+			progress[0] = nodeCount;
+			if (solutionCount > 10) {
+				cancel.cancel();
+			}
+		}, 0));
+		assertEquals(SolveResult.Status.CANCELLED, result.getStatus());
+		assertTrue("Progress is not reported.", progress[0] > 0);
+		
+		result = Randomizer.generate(2, 2, new Board(), SolveOptions.create().timeout(1000));
+		assertEquals(1, result.getSolutionCount());
+		assertEquals(SolveResult.Status.LIMIT_REACHED, result.getStatus());
+		
+		CancelToken token = new CancelToken();
+		token.cancel();
+		result = Randomizer.generate(3, 3, new Board(), SolveOptions.create().token(token));
+		assertEquals(SolveResult.Status.CANCELLED, result.getStatus());
+		assertEquals(0, result.getSolutionCount());
+	}
+	
+	@Test
+	public void testStatistics() throws IOException {
+		Board board = loadBoard("/levels/001.ksd");
+		SolveResult result = Solver.solve(3, 3, board, SolveOptions.create());
+		SolveStatistics statistics = result.getStatistics();
+		assertEquals(SolveResult.Status.COMPLETED, result.getStatus());
+		assertEquals(result.getNodeCount(), statistics.getCoverCount());
+		assertEquals(Board.SIZE * Board.SIZE, statistics.getMaxDepth());
+		assertTrue("Backtracks are not counted.", statistics.getBacktrackCount() > 0);
+		
+		// the whole tree is explored, only given cells stay covered
+		int givenCount = 0;
+		for (int row = 0; row < Board.SIZE; row++) {
+			for (int col = 0; col < Board.SIZE; col++) {
+				if (board.getCell(row, col).isEmpty() == false) {
+					givenCount++;
+				}
+			}
+		}
+		assertEquals(statistics.getCoverCount() - givenCount, statistics.getUncoverCount());
+		
+		// propagation removes most candidates which break a group sum, without it the sum check refuses them
+		ArrayDLX dlx = ArrayDLX.create(3, 3);
+		dlx.setPropagating(false);
+		dlx.applyBoardConstraints(loadBoard("/levels/001.ksd"));
+		new Solver(dlx).count(2);
+		assertTrue("Rejections are not counted.", new SolveStatistics(dlx).getRejectionCount() > 0);
+	}
+	
+	@Test
+	public void testSolveEvent() throws IOException {
+		Path file = Files.createTempFile("solve", ".jfr");
+		try (Recording recording = new Recording()) {
+			recording.enable("dev.ken.red.Solve");
+			recording.start();
+			SolveResult result = Solver.solve(3, 3, loadBoard("/levels/001.ksd"), SolveOptions.create().record("001"));
+			Solver.solve(3, 3, loadBoard("/levels/000.ksd"), SolveOptions.create());
+			recording.stop();
+			recording.dump(file);
+			
+			// only the recorded solve has an event
+			int count = 0;
+			for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+				if (event.getEventType().getName().equals("dev.ken.red.Solve")) {
+					count++;
+					assertEquals("001", event.getString("puzzleId"));
+					assertEquals("Solver", event.getString("engine"));
+					assertEquals("COMPLETED", event.getString("status"));
+					assertEquals(result.getNodeCount(), event.getLong("coverCount"));
+					assertEquals(result.getStatistics().getBacktrackCount(), event.getLong("backtrackCount"));
+				}
+			}
+			assertEquals(1, count);
+		}
+		finally {
+			Files.delete(file);
+		}
+	}
+	
+	@Test
+	public void testLogicSolver() throws IOException {
+		int solvedCount = 0;
+		String[] names = {"000", "001", "999", "dailykillersudoku.com/09/2009-01-09", "dailykillersudoku.com/09/2009-01-27"};
+		for (String name : names) {
+			Board board = loadBoard("/levels/" + name + ".ksd");
+			byte[] solution = Solver.iterate(3, 3, board).next();
+			LogicSolver solver = LogicSolver.create(board);
+			
+			// every step must agree with the solution
+			for (Deduction deduction = solver.next(); deduction != null; deduction = solver.next()) {
+				if (deduction.isPlacement()) {
+					assertEquals(deduction.toString(), solution[deduction.getCell()], deduction.getValue());
+				}
+				for (int i = 0; i < deduction.getEliminationCount(); i++) {
+					int bit = 1 << (solution[deduction.getEliminatedCell(i)] - 1);
+					assertEquals(deduction.toString(), 0, deduction.getEliminatedMask(i) & bit);
+				}
+				assertTrue("Deduction has no reason.", deduction.getReason().length > 0);
+			}
+			
+			assertTrue("Logic solver broke a valid level.", solver.isBroken() == false);
+			if (solver.isSolved()) {
+				solvedCount++;
+				for (int i = 0; i < solution.length; i++) {
+					assertEquals(solution[i], solver.getValue(i));
+				}
+			}
+		}
+		assertTrue("Logic solver can't solve any level.", solvedCount > 0);
+		
+		// a wrong given value is found
+		Board board = loadBoard("/levels/001.ksd");
+		byte[] solution = Solver.iterate(3, 3, board).next();
+		board.updateCellValue(0, 0, solution[0] % 9 + 1, false);
+		LogicSolver solver = LogicSolver.create(board);
+		solver.run();
+		assertTrue("Wrong value is not found.", solver.isBroken());
+	}
+	
+	@Test
+	public void testIterator() throws IOException {
+		Board board = createBoard(5, new int[][] {{0,0},{1,0}});
+		List<Collection<Node>> solutions = Solver.solve(2, 2, board);
+		Set<String> grids = new HashSet<>();
+		for (Collection<Node> solution : solutions) {
+			grids.add(Arrays.deepToString(Converter.toGrid(solution, 4)));
+		}
+		
+		int count = 0;
+		Iterator<byte[]> iterator = Solver.iterate(2, 2, board);
+		while (iterator.hasNext()) {
+			byte[] values = iterator.next();
+			int[][] grid = new int[4][4];
+			for (int i = 0; i < values.length; i++) {
+				grid[i / 4][i % 4] = values[i];
+			}
+			assertTrue("Iterator found a different solution.", grids.contains(Arrays.deepToString(grid)));
+			count++;
+		}
+		assertEquals(solutions.size(), count);
+		
+		// stream only searches as far as it is consumed
+		assertEquals(288, Solver.stream(2, 2, new Board()).count());
+		assertEquals(10, Solver.stream(3, 3, new Board()).limit(10).count());
+		
+		byte[] values = Solver.iterate(3, 3, loadBoard("/levels/000.ksd")).next();
+		for (byte value : values) {
+			assertTrue("Solution has empty cell.", value >= 1 && value <= 9);
+		}
+	}
+}
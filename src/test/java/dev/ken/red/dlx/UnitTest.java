@@ -25,12 +25,7 @@ public class UnitTest {
 		final int boardSize = blockCount * blockSize;
 		final int expectedHeadCount = boardSize * boardSize * 4;
 		
-		long t0 = System.nanoTime();
 		Head main = new DLX(blockCount, blockSize).main;
-		long span = System.nanoTime() - t0;
-		float ms = (float) span / 1000000;
-		logger.debug("Span: " + ms);
-		logger.debug("{<=-- TEST -=>}");
 		
 		int headCount = 0;
 		Head head = main.next;
@@ -75,6 +70,53 @@ public class UnitTest {
 		}
 	}
 	
+	private void testArrayPattern(int blockCount, int blockSize) {
+		final int boardSize = blockCount * blockSize;
+		final int expectedHeadCount = boardSize * boardSize * 4;
+		
+		ArrayDLX dlx = new ArrayDLX(blockCount, blockSize);
+		
+		int headCount = 0;
+		int head = dlx.R[ArrayDLX.ROOT];
+		while (head != ArrayDLX.ROOT) {
+			headCount++;
+			
+			assertFalse("Head count exceeded the expected value.", headCount > expectedHeadCount);
+			assertEquals("Head doesn't have expected row count.", boardSize, dlx.S[head]);
+			
+			// traverse through all candidates of a head (column), the head itself is not a candidate
+			int rowCount = 0;
+			for (int row = dlx.D[head]; row != head; row = dlx.D[row]) {
+				rowCount++;
+				assertFalse("Node count in a column is higher than expected.", rowCount > boardSize);
+				assertEquals("Node doesn't point to its head.", head, dlx.C[row]);
+				
+				// traverse through all nodes in the row of the candidate
+				int colCount = 0;
+				int col = row;
+				do {
+					colCount++;
+					assertFalse("Node count in a row exceeded 4.", colCount > 4);
+					assertEquals("Nodes of a row belong to different lines.", dlx.X[row], dlx.X[col]);
+					col = dlx.R[col];
+				} while (col != row);
+				assertEquals("Node count in a row is not 4.", 4, colCount);
+			}
+			assertEquals("Node count in a column is not as expected.", boardSize, rowCount);
+			
+			head = dlx.R[head];
+		}
+		
+		assertEquals("Head count is not correct.", expectedHeadCount, headCount);
+	}
+	
+	@Test
+	public void testArrayBuilder() {
+		for (int i = 2; i <= 4; i++) {
+			testArrayPattern(i, i);
+		}
+	}
+	
 	@Test
 	@Ignore
 	public void testRandomPerformance() {
@@ -1,19 +1,45 @@
 package dev.ken.red.test;
 
 import static org.junit.Assert.*;
+import static org.junit.Assume.assumeNoException;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import com.sun.management.ThreadMXBean;
+
 import dev.ken.red.model.Board;
 import dev.ken.red.model.Cell;
-import dev.ken.red.model.undo.CellSnapshot;
+import dev.ken.red.model.CompactBoard;
+import dev.ken.red.model.Group;
+import dev.ken.red.model.KsdFormatException;
+import dev.ken.red.model.KsdParser;
 import dev.ken.red.model.undo.Step;
+import dev.ken.red.model.undo.UndoLog;
+import dev.ken.red.util.AutoSaver;
+import dev.ken.red.util.Combinator;
+import dev.ken.red.util.LevelInfo;
+import dev.ken.red.util.LevelManifestWriter;
+import dev.ken.red.util.LevelPack;
+import dev.ken.red.util.LevelPackWriter;
+import dev.ken.red.util.LevelUtils;
 
 /**
  * 
@@ -62,7 +88,7 @@ public class BoardTest {
 		
 		// step must contains all relative cells of (4,4) and itself
 		Set<Cell> relativeCells = board.findRelativeCellsOf(target);
-		assertEquals("Step doesn't snap expected number of cells.", relativeCells.size() + 1, step.snapshots.size());
+		assertEquals("Step doesn't snap expected number of cells.", relativeCells.size() + 1, step.size());
 		for (Cell relativeCell : board.findRelativeCellsOf(target)) {
 			assertFalse("Automation mode doesn't clear hint as expected.", relativeCell.getHints().contains(value));
 		}
@@ -71,14 +97,482 @@ public class BoardTest {
 		board.undo(step);
 		
 		// verify that all cell value has been restored as expected
-		for (CellSnapshot snapshot : step.snapshots) {
-			Cell cell = board.getCell(snapshot.row, snapshot.col);
-			assertEquals("After undo, cell doesn't have expected value in snapshot.", snapshot.value, cell.getValue());
+		for (int i = 0; i < step.size(); i++) {
+			Cell cell = board.getCell(step.getRow(i), step.getCol(i));
+			int snapshotHints = step.getHints(i);
+			assertEquals("After undo, cell doesn't have expected value in snapshot.", step.getValue(i), cell.getValue());
+			assertEquals("After undo, cell doesn't have expected hints in snapshot", snapshotHints, cell.getHintMask());
 			Set<Integer> hints = cell.getHints();
-			assertEquals("After undo, cell doesn't have expected hints in snapshot", snapshot.hints.length, hints.size());
-			for (int hint : snapshot.hints) {
-				assertTrue("After undo, cell hints doesn't have expected value.", hints.contains(hint));
+			assertEquals("After undo, hint view doesn't have expected size.", Integer.bitCount(snapshotHints), hints.size());
+			for (int hint = 1; hint <= Board.SIZE; hint++) {
+				assertEquals("After undo, hint view doesn't have expected value.", (snapshotHints & 1 << (hint - 1)) != 0, hints.contains(hint));
+			}
+		}
+	}
+	
+	@Test
+	public void testCalculateAllHints() throws IOException {
+		assertHints("/sample.ksd");
+		assertHints("/finish.ksd");
+	}
+	
+	private void assertHints(String name) throws IOException {
+		Board board = new Board();
+		board.loadFrom(this.getClass().getResourceAsStream(name));
+		board.calculateAllHints();
+		
+		board.forEach(cell -> {
+			if (cell.isEmpty()) {
+				Group group = board.getGroup(cell.getGroupId());
+				int mask = Combinator.remainingMask(group.getCells().size(), group.getSum(), group.getValueMask(), 0);
+				assertFalse("Cell doesn't have any hint.", cell.getHints().isEmpty());
+				for (int hint : cell.getHints()) {
+					assertTrue("Hint is not in any remaining combination of the group.", (mask & 1 << (hint - 1)) != 0);
+				}
+				for (Cell relativeCell : board.findRelativeCellsOf(cell)) {
+					assertFalse("Hint is already a value of a relative cell.", cell.getHints().contains(relativeCell.getValue()));
+				}
+			}
+		});
+	}
+	
+	@Test
+	public void testPeers() throws IOException {
+		Board board = new Board();
+		board.loadFrom(this.getClass().getResourceAsStream("/sample.ksd"));
+		
+		board.forEach(cell -> {
+			assertEquals("Cell doesn't have expected unit peers.", 20, board.getUnitPeersOf(cell).length);
+			
+			// relative cells share row, column, block or group
+			Set<Cell> relativeCells = board.findRelativeCellsOf(cell);
+			board.forEach(other -> {
+				boolean isRelative = other != cell && (other.row == cell.row || other.col == cell.col
+						|| (other.row / 3 == cell.row / 3 && other.col / 3 == cell.col / 3)
+						|| other.getGroupId() == cell.getGroupId());
+				assertEquals("Wrong relative cell " + other + " of " + cell, isRelative, relativeCells.contains(other));
+			});
+		});
+		
+		// group peers follow cells moved between groups
+		Cell cell = board.getCell(0, 0);
+		Cell far = board.getCell(8, 8);
+		Group group = board.getGroup(cell.getGroupId());
+		assertFalse(board.findRelativeCellsOf(cell).contains(far));
+		board.getGroup(far.getGroupId()).subCell(far);
+		group.addCell(far);
+		assertTrue("Group peers are not rebuilt.", board.findRelativeCellsOf(cell).contains(far));
+	}
+	
+	@Test
+	public void testCounters() throws IOException {
+		Board board = new Board();
+		board.loadFrom(this.getClass().getResourceAsStream("/finish.ksd"));
+		
+		// the only empty cell takes the value missing from its row
+		Cell[] empty = new Cell[1];
+		board.forEach(cell -> {
+			if (cell.isEmpty()) {
+				empty[0] = cell;
+			}
+		});
+		Cell target = empty[0];
+		int missing = Board.SUM / Board.SIZE;
+		for (int col = 0; col < Board.SIZE; col++) {
+			missing -= board.getCell(target.row, col).getValue();
+		}
+		assertFalse(board.isSolved());
+		assertEquals(0, board.getConflictCount());
+		
+		// a wrong value conflicts with the row, column or block and breaks the group sum
+		int wrong = missing % Board.SIZE + 1;
+		board.updateCellValue(target.row, target.col, wrong, false);
+		assertFalse(board.isSolved());
+		assertTrue("Conflict is not counted.", board.getConflictCount() > 0);
+		assertTrue(board.isConflicting(target.row, target.col));
+		assertEquals(1, board.getInvalidGroupCount());
+		
+		board.updateCellValue(target.row, target.col, missing, false);
+		assertEquals(0, board.getConflictCount());
+		assertEquals(0, board.getInvalidGroupCount());
+		assertFalse(board.isConflicting(target.row, target.col));
+		assertTrue("Board is not solved.", board.isSolved());
+		
+		// moving a cell to another group recounts both groups
+		Cell moved = board.getCell(0, 0);
+		Group from = board.getGroup(moved.getGroupId());
+		Group to = board.getGroup(board.getCell(Board.MAX_INDEX, Board.MAX_INDEX).getGroupId());
+		int duplicates = (int) to.getCells().stream().filter(cell -> cell.getValue() == moved.getValue()).count();
+		from.subCell(moved);
+		to.addCell(moved);
+		assertEquals(2, board.getInvalidGroupCount());
+		assertEquals(duplicates, board.getConflictCount());
+		assertFalse(board.isSolved());
+		
+		to.subCell(moved);
+		from.addCell(moved);
+		assertEquals(0, board.getInvalidGroupCount());
+		assertEquals(0, board.getConflictCount());
+		assertTrue("Board is not solved after moving the cell back.", board.isSolved());
+		
+		// so does a new sum
+		from.setSum(from.getSum() + 1);
+		assertEquals(1, board.getInvalidGroupCount());
+		from.setSum(from.getSum() - 1);
+		assertTrue(board.isSolved());
+		
+		board.removeCellValue(target.row, target.col);
+		assertFalse(board.isSolved());
+	}
+	
+	@Test
+	public void testCompactBoard() throws IOException {
+		Board board = new Board();
+		board.loadFrom(this.getClass().getResourceAsStream("/finish.ksd"));
+		board.forEach(cell -> {
+			if (cell.isEmpty()) {
+				board.addCellHint(cell.row, cell.col, 3);
 			}
+		});
+		
+		CompactBoard compact = CompactBoard.from(board);
+		assertEquals(board.getGroups().size(), compact.getCageCount());
+		
+		// groups, values and hints survive the round trip
+		Board copy = compact.toBoard();
+		board.forEach(cell -> {
+			Cell other = copy.getCell(cell.row, cell.col);
+			assertEquals("Value is lost.", cell.getValue(), other.getValue());
+			assertEquals("Hints are lost.", cell.getHintMask(), other.getHintMask());
+			
+			Group group = board.getGroup(cell.getGroupId());
+			Group otherGroup = copy.getGroup(other.getGroupId());
+			assertEquals("Group sum is lost.", group.getSum(), otherGroup.getSum());
+			assertEquals("Group size is lost.", group.getCells().size(), otherGroup.getCells().size());
+		});
+		
+		// the same instance can be reused
+		Board sample = new Board();
+		sample.loadFrom(this.getClass().getResourceAsStream("/sample.ksd"));
+		compact.copyFrom(sample);
+		assertEquals(sample.getGroups().size(), compact.getCageCount());
+		for (int index = 0; index < CompactBoard.CELL_COUNT; index++) {
+			assertEquals(Cell.EMPTY_VALUE, compact.getValue(index));
+		}
+	}
+	
+	@Test
+	public void testParser() throws IOException {
+		Board board = new Board();
+		board.loadFrom(this.getClass().getResourceAsStream("/finish.ksd"));
+		board.forEach(cell -> {
+			if (cell.isEmpty()) {
+				board.addCellHint(cell.row, cell.col, 5);
+			}
+		});
+		File file = File.createTempFile("parser", ".ksd");
+		file.deleteOnExit();
+		board.saveTo(file);
+		
+		// parse the saved file straight into a compact board
+		byte[] data = Files.readAllBytes(file.toPath());
+		KsdParser parser = new KsdParser();
+		CompactBoard compact = new CompactBoard();
+		parser.parse(ByteBuffer.wrap(data), compact);
+		assertEquals(board.getGroups().size(), compact.getCageCount());
+		board.forEach(cell -> {
+			assertEquals("Value is lost.", cell.getValue(), compact.getValue(cell.hash));
+			assertEquals("Hints are lost.", cell.getHintMask(), compact.getCandidates(cell.hash));
+			int cage = compact.getCageId(cell.hash);
+			assertEquals("Group id is lost.", cell.getGroupId(), parser.getGroupIds()[cage]);
+			assertEquals("Group sum is lost.", board.getGroup(cell.getGroupId()).getSum(), compact.getCageSum(cage));
+		});
+		
+		// windows line endings and a missing last line break are fine
+		String text = new String(data, StandardCharsets.US_ASCII).trim().replace("\n", "\r\n");
+		Board copy = new Board();
+		copy.loadFrom(new ByteArrayInputStream(text.getBytes(StandardCharsets.US_ASCII)));
+		board.forEach(cell -> {
+			Cell other = copy.getCell(cell.row, cell.col);
+			assertEquals("Value is lost.", cell.getValue(), other.getValue());
+			assertEquals("Hints are lost.", cell.getHintMask(), other.getHintMask());
+			assertEquals("Group is lost.", cell.getGroupId(), other.getGroupId());
+		});
+		
+		// errors point at the exact position
+		assertParseError("00 01\n05 \n", 2, 4);
+		assertParseError("00\n45\n\n00 00 0x", 4, 8);
+		String grid = "00\n45\n\n" + String.join("", Collections.nCopies(9, "00 00 00 00 00 00 00 00 00\n")) + "\n";
+		assertParseError(grid + "0,0:1;2\n9,0:0\n", 15, 1);
+		assertParseError(grid + "0,0:0;120\n", 14, 9);
+	}
+	
+	private void assertParseError(String text, int line, int column) {
+		byte[] data = text.getBytes(StandardCharsets.US_ASCII);
+		try {
+			new KsdParser().parse(data, 0, data.length, new CompactBoard());
+			fail("Malformed data is parsed.");
+		}
+		catch (KsdFormatException e) {
+			assertEquals("Wrong line: " + e.getMessage(), line, e.getLine());
+			assertEquals("Wrong column: " + e.getMessage(), column, e.getColumn());
+		}
+	}
+	
+	@Test
+	public void testLevelPack() throws IOException {
+		String[] names = { "/sample.ksd", "/finish.ksd" };
+		LevelPackWriter writer = new LevelPackWriter();
+		for (int i = 0; i < names.length; i++) {
+			writer.add(new File(this.getClass().getResource(names[i]).getFile()), i + 1);
+		}
+		File file = new File(dir, "levels" + LevelPack.FILE_EXT);
+		writer.writeTo(file);
+		
+		LevelPack pack = LevelPack.open(file);
+		assertEquals(names.length, pack.size());
+		for (int i = names.length - 1; i >= 0; i--) {
+			Board board = new Board();
+			board.loadFrom(this.getClass().getResourceAsStream(names[i]));
+			Board packed = pack.load(i);
+			assertEquals(i + 1, pack.getDifficulty(i));
+			assertEquals(board.getGroups().size(), packed.getGroups().size());
+			board.forEach(cell -> {
+				Cell other = packed.getCell(cell.row, cell.col);
+				assertEquals("Value is lost.", cell.getValue(), other.getValue());
+				Group group = board.getGroup(cell.getGroupId());
+				Group otherGroup = packed.getGroup(other.getGroupId());
+				assertEquals("Group sum is lost.", group.getSum(), otherGroup.getSum());
+				assertEquals("Group size is lost.", group.getCells().size(), otherGroup.getCells().size());
+			});
+		}
+		
+		try {
+			pack.load(names.length);
+			fail("Puzzle out of the pack is loaded.");
+		}
+		catch (IndexOutOfBoundsException e) {
+			// expected
+		}
+	}
+	
+	@Test
+	public void testLevelManifest() throws IOException, URISyntaxException {
+		List<LevelInfo> levels = LevelUtils.listLevelInfos();
+		assertFalse("Level manifest is empty.", levels.isEmpty());
+		assertEquals(levels.size(), LevelUtils.listAllLevels().size());
+		
+		// every level is bundled and its metadata is correct
+		for (LevelInfo level : levels) {
+			Board board = new Board();
+			board.loadFrom(this.getClass().getClassLoader().getResourceAsStream(level.path));
+			int[] givenCount = new int[1];
+			board.forEach(cell -> {
+				if (cell.isEmpty() == false) {
+					givenCount[0]++;
+				}
+			});
+			assertEquals("Wrong cage count of " + level.path, level.cageCount, board.getGroups().size());
+			assertEquals("Wrong given count of " + level.path, level.givenCount, givenCount[0]);
+		}
+		
+		// without manifest, scanning the level folder finds the same levels
+		URL folder = this.getClass().getClassLoader().getResource(LevelUtils.LEVEL_FOLDER);
+		List<LevelInfo> scanned = LevelManifestWriter.scan(new File(folder.toURI()).getParentFile());
+		assertEquals(levels.toString(), scanned.toString());
+	}
+	
+	/**
+	 * Level names are written in UTF-8, the charset LevelUtils reads the manifest with
+	 */
+	@Test
+	public void testLevelManifestCharset() throws IOException {
+		File root = new File(dir, "manifest");
+		File levelFolder = new File(root, LevelUtils.LEVEL_FOLDER);
+		levelFolder.mkdirs();
+		String name = "niveau-\u00e9t\u00e9" + LevelUtils.FILE_EXT;
+		Path levelFile;
+		try {
+			levelFile = new File(levelFolder, name).toPath();
+		}
+		catch (InvalidPathException e) {
+			assumeNoException("File names of this host can't hold the level name.", e);
+			return;
+		}
+		
+		Files.copy(this.getClass().getResourceAsStream("/sample.ksd"), levelFile, StandardCopyOption.REPLACE_EXISTING);
+		LevelManifestWriter.write(root);
+		String manifest = new String(Files.readAllBytes(new File(root, LevelUtils.MANIFEST).toPath()), StandardCharsets.UTF_8);
+		assertTrue("Level name is not written in UTF-8.", manifest.contains(LevelUtils.LEVEL_FOLDER + "/" + name));
+	}
+	
+	@Test
+	public void testAutoSave() throws IOException {
+		File snapshotFile = new File(dir, "autosave.ksd");
+		File journalFile = new File(dir, "autosave.ksj");
+		Board board = new Board();
+		board.loadFrom(this.getClass().getResourceAsStream("/sample.ksd"));
+		
+		AutoSaver saver = new AutoSaver(snapshotFile, journalFile);
+		saver.compact(board);
+		saver.record(board, board.updateCellValue(0, 0, 5, false));
+		saver.record(board, board.addCellHint(0, 1, 3));
+		saver.record(board, board.updateCellValue(0, 2, 5, false));
+		Step step = board.updateCellValue(4, 4, 7, false);
+		saver.record(board, step);
+		board.undo(step);
+		saver.record(board, step);
+		saver.close();
+		
+		// only the journal has the moves
+		assertTrue(journalFile.length() > 0);
+		assertSameBoard(board, AutoSaver.restore(snapshotFile, journalFile));
+		
+		// a torn record at the end is ignored
+		Files.write(journalFile.toPath(), new byte[] { 40, 1 }, StandardOpenOption.APPEND);
+		assertSameBoard(board, AutoSaver.restore(snapshotFile, journalFile));
+		
+		// compaction folds the journal into the snapshot
+		saver = new AutoSaver(snapshotFile, journalFile);
+		saver.flush(board);
+		saver.close();
+		assertEquals("Journal has more than its header.", 8, journalFile.length());
+		assertSameBoard(board, AutoSaver.restore(snapshotFile, journalFile));
+		
+		// a crash after a new level replaced the snapshot but before its journal is started leaves the old journal,
+		// it must not be replayed on the new level
+		saver = new AutoSaver(snapshotFile, journalFile);
+		saver.record(board, board.updateCellValue(8, 8, 9, false));
+		saver.close();
+		byte[] oldJournal = Files.readAllBytes(journalFile.toPath());
+		Board next = new Board();
+		next.loadFrom(this.getClass().getResourceAsStream("/finish.ksd"));
+		saver = new AutoSaver(snapshotFile, journalFile);
+		saver.flush(next);
+		saver.close();
+		Files.write(journalFile.toPath(), oldJournal);
+		assertSameBoard(next, AutoSaver.restore(snapshotFile, journalFile));
+	}
+	
+	private void assertSameBoard(Board expected, Board actual) {
+		assertEquals(expected.getGroups().size(), actual.getGroups().size());
+		assertEquals(expected.getConflictCount(), actual.getConflictCount());
+		expected.forEach(cell -> {
+			Cell other = actual.getCell(cell.row, cell.col);
+			assertEquals("Value is lost.", cell.getValue(), other.getValue());
+			assertEquals("Hints are lost.", cell.getHintMask(), other.getHintMask());
+			assertEquals("Error links are lost.", cell.getErrorCells().size(), other.getErrorCells().size());
+			assertEquals("Group sum is lost.", expected.getGroup(cell.getGroupId()).getSum(),
+					actual.getGroup(other.getGroupId()).getSum());
+		});
+	}
+	
+	@Test
+	public void testUndoLog() throws IOException {
+		Board board = new Board();
+		board.loadFrom(this.getClass().getResourceAsStream("/sample.ksd"));
+		board.calculateAllHints();
+		Board original = new Board();
+		original.loadFrom(this.getClass().getResourceAsStream("/sample.ksd"));
+		original.calculateAllHints();
+		
+		UndoLog log = new UndoLog(4, 64);
+		log.push(board.updateCellValue(0, 0, 5, true));
+		log.push(board.subCellHint(0, 1, 3));
+		log.push(board.updateCellValue(0, 2, 5, true));
+		log.push(board.updateCellValue(0, 0, 6, true));
+		log.push(board.removeCellHints(8, 8));
+		Board done = new Board();
+		done.loadFrom(this.getClass().getResourceAsStream("/sample.ksd"));
+		done.calculateAllHints();
+		done.updateCellValue(0, 0, 5, true);
+		done.subCellHint(0, 1, 3);
+		done.updateCellValue(0, 2, 5, true);
+		done.updateCellValue(0, 0, 6, true);
+		done.removeCellHints(8, 8);
+		
+		// undo everything, then redo everything
+		while (log.undo(board));
+		assertFalse(log.canUndo());
+		assertSameBoard(original, board);
+		while (log.redo(board));
+		assertFalse(log.canRedo());
+		assertSameBoard(done, board);
+		
+		// a new step clears redo steps
+		assertTrue(log.undo(board));
+		log.push(board.addCellHint(8, 8, 1));
+		assertFalse(log.canRedo());
+		
+		// memory is bounded, the oldest steps are dropped
+		for (int i = 0; i < 1000; i++) {
+			log.push(board.addCellHint(8, 8, i % 9 + 1));
+		}
+		assertTrue(log.size() <= 64);
+		int undoCount = 0;
+		while (log.undo(board)) {
+			undoCount++;
+		}
+		assertEquals(64, undoCount);
+	}
+	
+	@Test
+	public void testAuto() throws IOException {
+		Board board = new Board();
+		board.loadFrom(this.getClass().getResourceAsStream("/sample.ksd"));
+		board.calculateAllHints();
+		Board original = new Board();
+		original.loadFrom(this.getClass().getResourceAsStream("/sample.ksd"));
+		original.calculateAllHints();
+		
+		// single hints are forced values, auto never makes a conflict and undo brings the board back
+		Step step = board.auto();
+		assertNotNull("Auto doesn't find any candidate.", step);
+		assertEquals(0, board.getConflictCount());
+		for (int i = 0; i < step.size(); i++) {
+			if (step.isMain(i)) {
+				assertFalse("Auto doesn't fill the cell.", board.getCell(step.getRow(i), step.getCol(i)).isEmpty());
+			}
+		}
+		board.undo(step);
+		assertSameBoard(original, board);
+		
+		// only the returned step is allocated
+		ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long threadId = Thread.currentThread().getId();
+		for (int i = 0; i < 1000; i++) {
+			board.undo(board.auto());
+		}
+		long before = threads.getThreadAllocatedBytes(threadId);
+		step = board.auto();
+		long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+		assertTrue("Auto allocates " + allocated + " bytes.", allocated <= 64 + 8L * step.size());
+	}
+	
+	@Test
+	public void testUndoLogAllocation() {
+		ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long threadId = Thread.currentThread().getId();
+		
+		Board board = new Board();
+		UndoLog log = new UndoLog();
+		log.push(board.updateCellValue(0, 0, 5, true));
+		log.push(board.addCellHint(0, 1, 3));
+		log.push(board.updateCellValue(4, 4, 7, true));
+		log.push(board.removeCellValue(0, 0));
+		
+		// warm up, then undo and redo everything many times, a step or snapshot per cycle would take far more than a byte
+		int cycles = 10000;
+		for (int i = 0; i < cycles; i++) {
+			while (log.undo(board));
+			while (log.redo(board));
+		}
+		long before = threads.getThreadAllocatedBytes(threadId);
+		for (int i = 0; i < cycles; i++) {
+			while (log.undo(board));
+			while (log.redo(board));
 		}
+		long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+		assertTrue("Undo and redo allocate " + allocated + " bytes.", allocated < cycles);
 	}
 }
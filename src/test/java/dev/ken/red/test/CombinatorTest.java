@@ -36,7 +36,7 @@ public class CombinatorTest {
 		long nano = remain % 1000;
 		logger.debug(String.format("Took [%d]ms [%d]us [%d]ns", milli, micro, nano));
 	}
-
+	
 	@Test
 	public void normalTest() {
 		testPattern(2, 10, 4);
@@ -48,9 +48,144 @@ public class CombinatorTest {
 		testPattern(5, 20, 6);
 	}
 	
+	/**
+	 * Candidate masks must be the union of all combinations which avoid used digits
+	 */
+	private void testMask(int digits, int size, int sum, int usedMask) {
+		int expected = 0;
+		for (int combination = 0; combination < 1 << digits; combination++) {
+			int total = 0;
+			for (int bits = combination; bits != 0; bits &= bits - 1) {
+				total += Integer.numberOfTrailingZeros(bits) + 1;
+			}
+			if (Integer.bitCount(combination) == size && total == sum && (combination & usedMask) == 0) {
+				expected |= combination;
+			}
+		}
+		assertEquals("Wrong mask for size=" + size + " & sum=" + sum + " & used=" + usedMask, expected, Combinator.candidateMask(digits, size, sum, usedMask));
+	}
+	
+	@Test
+	public void maskTest() {
+		for (int size = 0; size <= 9; size++) {
+			for (int sum = 0; sum <= 45; sum++) {
+				testMask(9, size, sum, 0);
+				testMask(9, size, sum, 0b000010010);
+				testMask(4, size, sum, 0b0001);
+			}
+		}
+		
+		// boards bigger than the table
+		for (int sum = 0; sum <= 78; sum++) {
+			testMask(12, 3, sum, 0);
+			testMask(12, 5, sum, 0b100000000110);
+		}
+		for (int sum = 36; sum <= 100; sum += 4) {
+			testMask(16, 8, sum, 0);
+			testMask(16, 8, sum, 0b1000000000100101);
+		}
+	}
+	
+	@Test
+	public void tableTest() {
+		for (int size = 0; size <= 9; size++) {
+			for (int sum = 0; sum <= 45; sum++) {
+				int count = 0;
+				int union = 0;
+				for (int combination = 0; combination < 1 << 9; combination++) {
+					int total = 0;
+					for (int bits = combination; bits != 0; bits &= bits - 1) {
+						total += Integer.numberOfTrailingZeros(bits) + 1;
+					}
+					if (Integer.bitCount(combination) == size && total == sum) {
+						count++;
+						union |= combination;
+					}
+				}
+				
+				int[] masks = Combinator.combinationMasks(size, sum);
+				assertEquals("Wrong combination count for size=" + size + " & sum=" + sum, count, masks.length);
+				assertEquals("Wrong union for size=" + size + " & sum=" + sum, union, Combinator.unionMask(size, sum));
+				
+				// combinations are sorted the same way as they are displayed
+				for (int i = 1; i < masks.length; i++) {
+					int[] previous = Combinator.toValues(masks[i - 1]);
+					int[] current = Combinator.toValues(masks[i]);
+					int j = 0;
+					while (previous[j] == current[j]) {
+						j++;
+					}
+					assertTrue("Combinations are not in order.", previous[j] < current[j]);
+				}
+			}
+		}
+		
+		assertArrayEquals(new int[] {1, 4, 9}, Combinator.toValues(0b100001001));
+		assertEquals(0, Combinator.combinationMasks(10, 45).length);
+		assertEquals(0, Combinator.unionMask(2, 46));
+	}
+	
+	@Test
+	public void queryTest() {
+		final int[][] masks = {{0, 0}, {0b000000100, 0}, {0b000001001, 0}, {0, 0b100010001}, {0b000010000, 0b000000011}, {0b1000000000, 0}};
+		for (int size = 0; size <= 9; size++) {
+			for (int sum = 0; sum <= 45; sum++) {
+				int[] combinations = Combinator.combinationMasks(size, sum);
+				for (int[] mask : masks) {
+					int required = mask[0];
+					int forbidden = mask[1];
+					
+					// brute force over the full combination list
+					int expected = 0;
+					int union = 0;
+					for (int i = 0; i < combinations.length; i++) {
+						if ((combinations[i] & required) == required && (combinations[i] & forbidden) == 0) {
+							expected |= 1 << i;
+							union |= combinations[i];
+						}
+					}
+					
+					String message = "size=" + size + " & sum=" + sum + " & required=" + required + " & forbidden=" + forbidden;
+					assertEquals("Wrong survivors for " + message, expected, Combinator.filterCombinations(size, sum, required, forbidden));
+					assertEquals("Wrong remaining mask for " + message, union & ~required, Combinator.remainingMask(size, sum, required, forbidden));
+				}
+			}
+		}
+	}
+	
 	@Test
 	public void faultyTest() {
 		testPattern(2, 18, 0);
 		testPattern(5, 10, 0);
 	}
+	
+	@Test
+	public void digitsTest() {
+		// 9 digits come straight from the table
+		for (int size = 0; size <= 9; size++) {
+			for (int sum = 0; sum <= 45; sum++) {
+				assertSame(Combinator.combinationMasks(size, sum), Combinator.combinationMasks(9, size, sum));
+				assertEquals(Combinator.unionMask(size, sum), Combinator.unionMask(9, size, sum));
+			}
+		}
+		
+		// generated entries have table entries which fit in the same order
+		for (int digits : new int[] { 4, 12 }) {
+			for (int size = 0; size <= 4; size++) {
+				for (int sum = 0; sum <= 30; sum++) {
+					int[] masks = Combinator.combinationMasks(digits, size, sum);
+					int[] expected = Arrays.stream(Combinator.combinationMasks(size, sum)).filter(mask -> mask >> digits == 0).toArray();
+					int[] small = Arrays.stream(masks).filter(mask -> mask >> 9 == 0).toArray();
+					assertArrayEquals(expected, small);
+					
+					int union = 0;
+					for (int mask : masks) {
+						union |= mask;
+						assertEquals(size, Integer.bitCount(mask));
+					}
+					assertEquals(union, Combinator.unionMask(digits, size, sum));
+				}
+			}
+		}
+	}
 }
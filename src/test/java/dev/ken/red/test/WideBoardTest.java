@@ -0,0 +1,197 @@
+package dev.ken.red.test;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import dev.ken.red.dlx.Converter;
+import dev.ken.red.dlx.Deduction;
+import dev.ken.red.dlx.LogicSolver;
+import dev.ken.red.dlx.Randomizer;
+import dev.ken.red.dlx.Solver;
+import dev.ken.red.model.Block;
+import dev.ken.red.model.Board;
+import dev.ken.red.model.Cell;
+import dev.ken.red.model.CompactBoard;
+import dev.ken.red.model.Group;
+import dev.ken.red.util.AutoSaver;
+import dev.ken.red.util.Combinator;
+import dev.ken.red.util.LevelPack;
+import dev.ken.red.util.LevelPackWriter;
+
+/**
+ * Boards larger than 9x9, the board size is fixed when the model is loaded,
+ * so these tests only run in a JVM started with -Ddev.ken.red.blockSize=4 (see pom.xml).
+ * 
+ * @author kenguyen
+ *
+ */
+public class WideBoardTest {
+	
+	private static final File dir = new File("./target/test/");
+	
+	private int[][] solution;
+	
+	@Before
+	public void checkSize() {
+		assumeTrue("Board is not larger than 9x9.", Board.SIZE > 9);
+		dir.mkdirs();
+	}
+	
+	/**
+	 * Random solution, cages are horizontal pairs and the first rows are given
+	 */
+	private Board createBoard(int givenRows) {
+		solution = Converter.toGrid(Randomizer.generate(Block.COUNT, Block.SIZE, new Board()), Board.SIZE);
+		
+		Board board = new Board();
+		int id = 0;
+		for (int row = 0; row < Board.SIZE; row++) {
+			for (int col = 0; col < Board.SIZE; col += 2) {
+				Group group = new Group(id++);
+				int sum = 0;
+				for (int c = col; c < Math.min(col + 2, Board.SIZE); c++) {
+					group.addCell(board.getCell(row, c));
+					sum += solution[row][c];
+				}
+				group.setSum(sum);
+				board.addGroup(group);
+			}
+		}
+		for (Group group : board.getGroups()) {
+			group.calculateCombinations();
+		}
+		
+		for (int row = 0; row < givenRows; row++) {
+			for (int col = 0; col < Board.SIZE; col++) {
+				board.updateCellValue(row, col, solution[row][col], false);
+			}
+		}
+		return board;
+	}
+	
+	private void assertSameBoard(Board expected, Board actual) {
+		assertEquals(expected.getGroups().size(), actual.getGroups().size());
+		expected.forEach(cell -> {
+			Cell other = actual.getCell(cell.row, cell.col);
+			assertEquals("Value is lost.", cell.getValue(), other.getValue());
+			assertEquals("Hints are lost.", cell.getHintMask(), other.getHintMask());
+			assertEquals("Group sum is lost.", expected.getGroup(cell.getGroupId()).getSum(),
+					actual.getGroup(other.getGroupId()).getSum());
+		});
+	}
+	
+	@Test
+	public void testCombinator() {
+		final int digits = Board.SIZE;
+		assertArrayEquals(new int[] { 3 << (digits - 2) }, Combinator.combinationMasks(digits, 2, digits * 2 - 1));
+		assertEquals(0, Combinator.combinationMasks(digits, 2, digits * 2).length);
+		
+		// every combination has the size and the sum, and they come in lexicographic order
+		int[] masks = Combinator.combinationMasks(digits, 4, 30);
+		int union = 0;
+		for (int i = 0; i < masks.length; i++) {
+			int[] values = Combinator.toValues(masks[i]);
+			assertEquals(4, values.length);
+			assertEquals(30, values[0] + values[1] + values[2] + values[3]);
+			union |= masks[i];
+			if (i > 0) {
+				int[] previous = Combinator.toValues(masks[i - 1]);
+				int k = 0;
+				while (previous[k] == values[k]) {
+					k++;
+				}
+				assertTrue("Combinations are not ordered.", previous[k] < values[k]);
+			}
+		}
+		assertEquals(Combinator.unionMask(digits, 4, 30), union);
+	}
+	
+	@Test
+	public void testHints() {
+		Board board = createBoard(Board.SIZE / 2);
+		board.calculateAllHints();
+		board.forEach(cell -> {
+			if (cell.isEmpty()) {
+				assertTrue("Hints don't have the solution.", cell.hasHint(solution[cell.row][cell.col]));
+			}
+		});
+	}
+	
+	@Test
+	public void testLogicSolver() {
+		Board board = createBoard(Board.SIZE / 2);
+		LogicSolver solver = LogicSolver.create(board);
+		for (Deduction deduction : solver.run()) {
+			if (deduction.isPlacement()) {
+				int cell = deduction.getCell();
+				assertEquals(deduction.toString(), solution[cell / Board.SIZE][cell % Board.SIZE], deduction.getValue());
+			}
+		}
+		assertFalse("Logic solver broke a valid board.", solver.isBroken());
+		for (int cell = 0; cell < Board.SIZE * Board.SIZE; cell++) {
+			int bit = 1 << (solution[cell / Board.SIZE][cell % Board.SIZE] - 1);
+			assertTrue("Candidates don't have the solution.", (solver.getCandidates(cell) & bit) != 0);
+		}
+	}
+	
+	@Test
+	public void testSaveAndLoad() throws IOException {
+		Board board = createBoard(Board.SIZE / 2);
+		board.calculateAllHints();
+		
+		File file = new File(dir, "wide.ksd");
+		board.saveTo(file);
+		Board copy = new Board();
+		copy.loadFrom(file);
+		assertSameBoard(board, copy);
+		
+		// journal records of the last cells
+		File snapshotFile = new File(dir, "wide-autosave.ksd");
+		File journalFile = new File(dir, "wide-autosave.ksj");
+		AutoSaver saver = new AutoSaver(snapshotFile, journalFile);
+		saver.compact(board);
+		saver.record(board, board.updateCellValue(Board.MAX_INDEX, Board.MAX_INDEX, Board.SIZE, false));
+		saver.record(board, board.subCellHint(Board.MAX_INDEX, 0, solution[Board.MAX_INDEX][0]));
+		saver.close();
+		assertSameBoard(board, AutoSaver.restore(snapshotFile, journalFile));
+		
+		// level pack
+		LevelPackWriter writer = new LevelPackWriter();
+		writer.add(CompactBoard.from(board), 0);
+		File packFile = new File(dir, "wide" + LevelPack.FILE_EXT);
+		writer.writeTo(packFile);
+		Board packed = LevelPack.open(packFile).load(0);
+		board.forEach(cell -> {
+			assertEquals("Value is lost.", cell.getValue(), packed.getCell(cell.row, cell.col).getValue());
+		});
+	}
+	
+	/**
+	 * Timing of these is measured by WideBoardBenchmark
+	 */
+	@Test
+	public void testSolve() {
+		for (int i = 0; i < 10; i++) {
+			Board board = createBoard(Board.SIZE / 2);
+			assertTrue("Board is not solved.", Solver.countSolutions(board, 1) == 1);
+			
+			// a random fill is a valid solution
+			int[][] grid = Converter.toGrid(Randomizer.generate(Block.COUNT, Block.SIZE, new Board()), Board.SIZE);
+			for (int row = 0; row < Board.SIZE; row++) {
+				int rowMask = 0;
+				int colMask = 0;
+				for (int col = 0; col < Board.SIZE; col++) {
+					rowMask |= 1 << (grid[row][col] - 1);
+					colMask |= 1 << (grid[col][row] - 1);
+				}
+				assertEquals("Row or column is not filled.", (1 << Board.SIZE) - 1, rowMask & colMask);
+			}
+		}
+	}
+}